@@ -18,19 +18,52 @@ package org.jolokia.mcp.jvmagent;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.MalformedObjectNameException;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.relation.MBeanServerNotificationFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jolokia.core.api.LogHandler;
 import org.jolokia.core.util.ClassUtil;
 import org.jolokia.core.util.LocalServiceFactory;
+import org.jolokia.json.JSONArray;
 import org.jolokia.json.JSONObject;
+import org.jolokia.mcp.JolokiaMcpMetrics;
 import org.jolokia.mcp.JolokiaService;
+import org.jolokia.mcp.MBeanAttribute;
+import org.jolokia.mcp.MBeanIndex;
+import org.jolokia.mcp.MBeanInfoCache;
+import org.jolokia.mcp.MBeanListCache;
+import org.jolokia.mcp.OperationIndex;
+import org.jolokia.server.core.util.RequestType;
 import org.jolokia.server.core.config.ConfigKey;
 import org.jolokia.server.core.config.Configuration;
 import org.jolokia.server.core.config.StaticConfiguration;
@@ -46,7 +79,6 @@ import org.jolokia.server.core.service.impl.CachingServerDetectorLookup;
 import org.jolokia.server.core.service.impl.ClasspathServerDetectorLookup;
 import org.jolokia.server.core.service.impl.ClasspathServiceCreator;
 import org.jolokia.server.core.service.impl.StdoutLogHandler;
-import org.jolokia.server.core.vm.InVmRequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,24 +89,99 @@ public class InVmJolokiaService implements JolokiaService {
 
     private static final String DEFAULT_JOLOKIA_AGENT_PROPERTIES = "/default-jolokia-agent.properties";
 
-    final JolokiaServiceManager serviceManager;
-    final InVmRequestHandler requestHandler;
+    /**
+     * MBean list cache mode that keeps the cached list up-to-date with MBean registration notifications.
+     */
+    static final String MBEAN_LIST_CACHE_NOTIFICATION = "notification";
 
-    public InVmJolokiaService() {
-        serviceManager = initServiceManager();
-        JolokiaContext context = serviceManager.start();
-        requestHandler = new InVmRequestHandler(context);
-    }
+    private final Configuration config;
+    private final LogHandler log;
+    private final Restrictor restrictor;
 
-    private JolokiaServiceManager initServiceManager() {
+    private final Object serviceManagerLock = new Object();
+    private JolokiaServiceManager serviceManager;
+    private volatile InVmReadHandler requestHandler;
+
+    /**
+     * Whether the Jolokia services are only started on the first call that needs them, instead of at startup.
+     */
+    @ConfigProperty(name = "jolokia.mcp.lazy", defaultValue = "false")
+    boolean lazy;
+
+    @ConfigProperty(name = "jolokia.mcp.mbean-list-cache.mode", defaultValue = MBEAN_LIST_CACHE_NOTIFICATION)
+    String mbeanListCacheMode;
+
+    @ConfigProperty(name = "jolokia.mcp.mbean-info-cache.max-size", defaultValue = "500")
+    int mbeanInfoCacheMaxSize;
+
+    /**
+     * Whether simple reads and execs go straight to the MBeanServer instead of through the
+     * Jolokia request pipeline.
+     */
+    @ConfigProperty(name = "jolokia.mcp.in-vm.fast-path", defaultValue = "true")
+    boolean fastPath;
+
+    MBeanInfoCache mbeanInfoCache;
+
+    private final Object mbeanListLock = new Object();
+    private volatile MBeanListCache mbeanListCache;
+    private final AtomicLong mbeanListHits = new AtomicLong();
+    private final AtomicLong mbeanListMisses = new AtomicLong();
+    private NotificationListener mbeanRegistrationListener;
+
+    /**
+     * Versioned MBean names for {@link #listMBeanChanges(String)}, kept up-to-date along with the MBean
+     * list cache in notification mode
+     */
+    private final MBeanIndex mbeanIndex = new MBeanIndex();
+
+    /**
+     * Registration notifications received while the MBean list is being fetched
+     */
+    private final Queue<MBeanServerNotification> pendingRegistrations = new ArrayDeque<>();
+    private boolean fetchingMBeans;
+
+    public InVmJolokiaService() {
+        // Only the configuration and the restrictor, which the fast path needs as well; the services
+        // are started by init() or on first use
         Map<String, String> defaultConfig = getDefaultConfig();
         addJolokiaId(defaultConfig);
-        Configuration config = new StaticConfiguration(defaultConfig);
-        LogHandler log = createLogHandler(
+        config = new StaticConfiguration(defaultConfig);
+        log = createLogHandler(
             config.getConfig(ConfigKey.LOGHANDLER_CLASS),
             config.getConfig(ConfigKey.LOGHANDLER_NAME),
             Boolean.parseBoolean(config.getConfig(ConfigKey.DEBUG)));
-        Restrictor restrictor = RestrictorFactory.createRestrictor(config, log);
+        restrictor = RestrictorFactory.createRestrictor(config, log);
+    }
+
+    /**
+     * Returns the request handler of the Jolokia services, starting them first if needed.
+     */
+    InVmReadHandler requestHandler() {
+        InVmReadHandler handler = requestHandler;
+        if (handler != null) {
+            return handler;
+        }
+        synchronized (serviceManagerLock) {
+            if (requestHandler == null) {
+                long start = System.nanoTime();
+                serviceManager = initServiceManager();
+                JolokiaContext context = serviceManager.start();
+                requestHandler = new InVmReadHandler(context);
+                LOG.debug("Started Jolokia services in {} ms", (System.nanoTime() - start) / 1_000_000);
+            }
+            return requestHandler;
+        }
+    }
+
+    /**
+     * Whether the Jolokia services have been started.
+     */
+    boolean isStarted() {
+        return requestHandler != null;
+    }
+
+    private JolokiaServiceManager initServiceManager() {
         ServerDetectorLookup lookup = new CachingServerDetectorLookup(new ClasspathServerDetectorLookup());
         JolokiaServiceManager serviceManager = JolokiaServiceManagerFactory.createJolokiaServiceManager(config, log, restrictor, lookup);
 
@@ -125,15 +232,198 @@ public class InVmJolokiaService implements JolokiaService {
         return new StdoutLogHandler(isDebug);
     }
 
+    @PostConstruct
+    void init() {
+        mbeanInfoCache = isNotificationMode()
+            ? MBeanInfoCache.nonExpiring(mbeanInfoCacheMaxSize)
+            : new MBeanInfoCache(mbeanInfoCacheMaxSize);
+        if (!lazy) {
+            requestHandler();
+        }
+    }
+
+    /**
+     * Creates the service at startup, so that the Jolokia services are started by {@link #init()}
+     * unless in lazy mode.
+     */
+    void onStart(@Observes StartupEvent event) {
+        LOG.debug("Jolokia services start {}", lazy ? "on first use" : "at startup");
+    }
+
+    @PreDestroy
+    void destroy() {
+        unsubscribeMBeanRegistrations();
+        synchronized (serviceManagerLock) {
+            if (serviceManager != null) {
+                // Releases the threads and MBeans of the Jolokia services, e.g. when the agent is stopped
+                serviceManager.stop();
+                serviceManager = null;
+                requestHandler = null;
+            }
+        }
+    }
+
+    private boolean isNotificationMode() {
+        return MBEAN_LIST_CACHE_NOTIFICATION.equalsIgnoreCase(mbeanListCacheMode);
+    }
+
+    @Override
+    public List<String> listMBeans() {
+        if (!isNotificationMode()) {
+            mbeanListMisses.incrementAndGet();
+            List<String> mbeans = fetchMBeans();
+            mbeanIndex.update(mbeans);
+            return mbeans;
+        }
+        return mbeanListCache().getMBeans();
+    }
+
+    /**
+     * In notification mode, the index is patched by the same registration notifications as the MBean
+     * list cache, so a call only costs the size of the changes since the token.
+     */
     @Override
-    public List<String> listMBeans() throws EmptyResponseException, BadRequestException {
-        JSONObject response = requestHandler.handleList(null);
-        JSONObject domains = (JSONObject) response.get("value");
-        LOG.debug("listMBeans: {}", domains);
-        return domains.entrySet().stream()
-            .flatMap(domain -> ((JSONObject) domain.getValue()).keySet().stream()
-                .map(props -> domain.getKey() + ":" + props))
+    public JSONObject listMBeanChanges(String sinceToken) {
+        if (isNotificationMode()) {
+            mbeanListCache();
+        } else {
+            listMBeans();
+        }
+        return mbeanIndex.changesSince(sinceToken);
+    }
+
+    private MBeanListCache mbeanListCache() {
+        synchronized (mbeanListLock) {
+            if (mbeanListCache != null) {
+                mbeanListHits.incrementAndGet();
+            } else {
+                mbeanListMisses.incrementAndGet();
+                // Subscribe before fetching so that no registration in between is missed
+                subscribeMBeanRegistrations();
+                synchronized (pendingRegistrations) {
+                    fetchingMBeans = true;
+                }
+                try {
+                    MBeanListCache cache = MBeanListCache.nonExpiring(fetchMBeans());
+                    synchronized (pendingRegistrations) {
+                        pendingRegistrations.forEach(notification -> applyMBeanRegistration(cache, notification));
+                        mbeanIndex.update(cache.getMBeans());
+                        mbeanListCache = cache;
+                    }
+                } finally {
+                    synchronized (pendingRegistrations) {
+                        pendingRegistrations.clear();
+                        fetchingMBeans = false;
+                    }
+                }
+            }
+            return mbeanListCache;
+        }
+    }
+
+    private List<String> fetchMBeans() {
+        // Only the names are needed, so query them instead of building the full /list tree
+        // with all the attribute and operation descriptors
+        List<String> mbeans = getMBeanServer().queryNames(null, null).stream()
+            .map(ObjectName::getCanonicalName)
             .collect(Collectors.toList());
+        LOG.debug("listMBeans: {}", mbeans);
+        return mbeans;
+    }
+
+    @Override
+    public void bindMetrics(MeterRegistry registry, Tags tags) {
+        JolokiaMcpMetrics.bindCache(registry, tags, "mbean-list", this,
+            service -> service.mbeanListHits.get(), service -> service.mbeanListMisses.get());
+        JolokiaMcpMetrics.bindCache(registry, tags, "mbean-info", mbeanInfoCache,
+            MBeanInfoCache::getHits, MBeanInfoCache::getMisses);
+    }
+
+    @Override
+    public List<String> searchMBeans(String pattern) throws MalformedObjectNameException {
+        List<String> mbeans = getMBeanServer().queryNames(new ObjectName(pattern), null).stream()
+            .map(ObjectName::getCanonicalName)
+            .collect(Collectors.toList());
+        LOG.debug("searchMBeans( {} ): {}", pattern, mbeans);
+        return mbeans;
+    }
+
+    /**
+     * Patches the MBean list cache incrementally on MBean registration/unregistration, which is the same
+     * event source (the MBeanServerDelegate) that the Jolokia pull/SSE notification backends use for
+     * remote clients.
+     */
+    private void subscribeMBeanRegistrations() {
+        synchronized (mbeanListLock) {
+            if (mbeanRegistrationListener != null) {
+                return;
+            }
+            MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+            filter.enableAllObjectNames();
+            mbeanRegistrationListener = this::handleMBeanRegistration;
+            try {
+                getMBeanServer().addNotificationListener(MBeanServerDelegate.DELEGATE_NAME,
+                    mbeanRegistrationListener, filter, null);
+            } catch (JMException e) {
+                mbeanRegistrationListener = null;
+                throw new IllegalStateException("Cannot subscribe to MBean registrations: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void unsubscribeMBeanRegistrations() {
+        synchronized (mbeanListLock) {
+            if (mbeanRegistrationListener == null) {
+                return;
+            }
+            try {
+                getMBeanServer().removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, mbeanRegistrationListener);
+            } catch (JMException e) {
+                LOG.warn("Cannot unsubscribe from MBean registrations: {}", e.getMessage());
+            }
+            mbeanRegistrationListener = null;
+            mbeanListCache = null;
+        }
+    }
+
+    /**
+     * Called on the thread that (un)registers the MBean, so it must never block on fetching the MBean list.
+     */
+    private void handleMBeanRegistration(Notification notification, Object handback) {
+        if (!(notification instanceof MBeanServerNotification registration)) {
+            return;
+        }
+        // Metadata of a re-registered MBean may differ, so evict on both registration and unregistration
+        mbeanInfoCache.remove(registration.getMBeanName().getCanonicalName());
+
+        MBeanListCache cache = mbeanListCache;
+        if (cache != null) {
+            applyMBeanRegistration(cache, registration);
+            return;
+        }
+        synchronized (pendingRegistrations) {
+            cache = mbeanListCache;
+            if (cache != null) {
+                applyMBeanRegistration(cache, registration);
+            } else if (fetchingMBeans) {
+                pendingRegistrations.add(registration);
+            }
+        }
+    }
+
+    private void applyMBeanRegistration(MBeanListCache cache, MBeanServerNotification notification) {
+        String mbean = notification.getMBeanName().getCanonicalName();
+        if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType())) {
+            cache.add(mbean);
+            mbeanIndex.added(mbean);
+        } else if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(notification.getType())) {
+            cache.remove(mbean);
+            mbeanIndex.removed(mbean);
+        }
+    }
+
+    private static MBeanServer getMBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
     }
 
     @Override
@@ -147,30 +437,316 @@ public class InVmJolokiaService implements JolokiaService {
     }
 
     private JSONObject getFromMBean(String mbean, String key) throws EmptyResponseException, BadRequestException {
-        JSONObject response = requestHandler.handleList(mbean);
-        JSONObject mbeanInfo = (JSONObject) response.get("value");
+        subscribeIfNotificationMode();
+        // Attributes and operations share one cached entry and one fetch
+        JSONObject mbeanInfo = mbeanInfoCache.get(mbean, this::fetchMBeanInfo);
         LOG.debug("getFromMBean( {}, {} ): {}", mbean, key, mbeanInfo);
         return (JSONObject) mbeanInfo.getOrDefault(key, new JSONObject());
     }
 
+    private void subscribeIfNotificationMode() {
+        if (isNotificationMode()) {
+            // Needed to evict metadata of unregistered MBeans
+            subscribeMBeanRegistrations();
+        }
+    }
+
+    private JSONObject fetchMBeanInfo(String mbean) throws EmptyResponseException, BadRequestException {
+        JSONObject response = requestHandler().handleList(mbean);
+        return (JSONObject) response.get("value");
+    }
+
     @Override
     public Optional<Object> read(String mbean, String attr) throws EmptyResponseException, BadRequestException {
-        JSONObject response = requestHandler.handleRead(mbean, attr);
+        Object value = fastRead(mbean, attr);
+        if (value != InVmValues.UNSUPPORTED) {
+            LOG.debug("read( {}, {} ): {}", mbean, attr, value);
+            return Optional.ofNullable(value);
+        }
+        JSONObject response = requestHandler().handleRead(mbean, attr);
         LOG.debug("read( {}, {} ): {}", mbean, attr, response);
         return Optional.ofNullable(response.get("value"));
     }
 
+    /**
+     * Reads all the attributes with a single request, letting the Jolokia serializer navigate into the
+     * values along the path so that only the requested parts of them are converted.
+     */
+    @Override
+    public Optional<Object> read(String mbean, List<String> attrs, String path)
+        throws EmptyResponseException, BadRequestException {
+        if (attrs.isEmpty()) {
+            throw new IllegalArgumentException("No attribute to read from " + mbean);
+        }
+        if (attrs.size() == 1 && (path == null || path.isEmpty())) {
+            return read(mbean, attrs.get(0));
+        }
+        JSONObject response = requestHandler().handleRead(mbean, attrs, path);
+        LOG.debug("read( {}, {}, {} ): {}", mbean, attrs, path, response);
+        return Optional.ofNullable(response.get("value"));
+    }
+
+    @Override
+    public JSONObject readPattern(String pattern, String attr)
+        throws EmptyResponseException, BadRequestException, MalformedObjectNameException {
+        JSONObject response = requestHandler().handleRead(pattern, attr);
+        LOG.debug("readPattern( {}, {} ): {}", pattern, attr, response);
+        return JolokiaService.flattenPatternRead(pattern, response.get("value"), attr);
+    }
+
+    /**
+     * Reads the attributes of each MBean at once, i.e. with {@link MBeanServer#getAttributes} on the
+     * fast path, or else with a single multi-attribute request. The attributes that can't be read
+     * that way, e.g. because one of them fails, are read one by one so that each gets its own error.
+     */
+    @Override
+    public JSONArray readAttributes(List<MBeanAttribute> attributes) {
+        Map<String, List<String>> attrsByMBean = new LinkedHashMap<>();
+        for (MBeanAttribute attribute : attributes) {
+            attrsByMBean.computeIfAbsent(attribute.mbean(), mbean -> new ArrayList<>()).add(attribute.attribute());
+        }
+        Map<String, Map<String, JSONObject>> outcomes = new HashMap<>();
+        attrsByMBean.forEach((mbean, attrs) -> outcomes.put(mbean, readAttributes(mbean, attrs)));
+
+        JSONArray result = new JSONArray();
+        for (MBeanAttribute attribute : attributes) {
+            JSONObject entry = new JSONObject();
+            entry.put("mbean", attribute.mbean());
+            entry.put("attribute", attribute.attribute());
+            entry.putAll(outcomes.get(attribute.mbean()).get(attribute.attribute()));
+            result.add(entry);
+        }
+        LOG.debug("readAttributes( {} ): {}", attributes, result);
+        return result;
+    }
+
+    /**
+     * Reads attributes of a single MBean.
+     *
+     * @return JSON object with either {@code value} or {@code error} by attribute name
+     */
+    private Map<String, JSONObject> readAttributes(String mbean, List<String> attrs) {
+        Map<String, JSONObject> outcomes = new HashMap<>();
+        fastReadAll(mbean, attrs, outcomes);
+        List<String> remaining = attrs.stream()
+            .filter(attr -> attr != null && !outcomes.containsKey(attr))
+            .distinct()
+            .toList();
+        if (remaining.size() > 1 && isSingleMBean(mbean)) {
+            try {
+                JSONObject response = requestHandler().handleRead(mbean, remaining, null);
+                if (!response.containsKey("error") && response.get("value") instanceof Map<?, ?> values) {
+                    remaining.stream()
+                        .filter(values::containsKey)
+                        .forEach(attr -> outcomes.put(attr, outcome("value", values.get(attr))));
+                }
+            } catch (EmptyResponseException | BadRequestException e) {
+                // Read them one by one to tell which one fails
+            }
+        }
+        for (String attr : attrs) {
+            if (outcomes.containsKey(attr)) {
+                continue;
+            }
+            try {
+                JSONObject response = requestHandler().handleRead(mbean, attr);
+                outcomes.put(attr, response.containsKey("error")
+                    ? outcome("error", response.get("error"))
+                    : outcome("value", response.get("value")));
+            } catch (EmptyResponseException | BadRequestException e) {
+                outcomes.put(attr, outcome("error", e.getMessage()));
+            }
+        }
+        return outcomes;
+    }
+
+    private static JSONObject outcome(String key, Object value) {
+        JSONObject outcome = new JSONObject();
+        outcome.put(key, value);
+        return outcome;
+    }
+
+    private static boolean isSingleMBean(String mbean) {
+        try {
+            return !new ObjectName(mbean).isPattern();
+        } catch (MalformedObjectNameException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(String mbean, List<String> attrs) {
+        return JolokiaService.isReadOnly(mbeanInfoCache.getIfPresent(mbean), attrs);
+    }
+
     @Override
     public Optional<Object> write(String mbean, String attr, Object value) throws EmptyResponseException, BadRequestException {
-        JSONObject response = requestHandler.handleWrite(mbean, attr, value);
+        JSONObject response = requestHandler().handleWrite(mbean, attr, value);
         LOG.debug("write( {}, {}, {} ): {}", mbean, attr, value, response);
         return Optional.ofNullable(response.get("value"));
     }
 
     @Override
     public Optional<Object> exec(String mbean, String op, Object... args) throws EmptyResponseException, BadRequestException {
-        JSONObject response = requestHandler.handleExec(mbean, op, args);
-        LOG.debug("exec( {}, {}, {} ): {}", mbean, op, args, response);
+        String operation = op;
+        if (!op.contains("(")) {
+            // The metadata is in-process, so resolve overloads up front. On the fast path it's taken
+            // from the MBeanServer, so that the exec doesn't start the Jolokia services
+            OperationIndex operations = fastOperations(mbean);
+            if (operations != null) {
+                Object value = fastExec(mbean, op, operations.descriptor(op, args), args);
+                if (value != InVmValues.UNSUPPORTED) {
+                    LOG.debug("exec( {}, {}, {} ): {}", mbean, op, args, value);
+                    return Optional.ofNullable(value);
+                }
+            } else {
+                subscribeIfNotificationMode();
+                operations = mbeanInfoCache.getOperations(mbean, this::fetchMBeanInfo);
+            }
+            operation = operations.resolve(op, args);
+        }
+        JSONObject response = requestHandler().handleExec(mbean, operation, args);
+        LOG.debug("exec( {}, {}, {} ): {}", mbean, operation, args, response);
         return Optional.ofNullable(response.get("value"));
     }
+
+    /**
+     * Reads a single attribute of a single MBean straight from the MBeanServer, skipping request
+     * parsing and JSON serialization by the Jolokia pipeline. The restrictor is still honoured.
+     *
+     * @return the converted value, or {@link InVmValues#UNSUPPORTED} if the read must go through
+     * the Jolokia pipeline instead
+     */
+    private Object fastRead(String mbean, String attr) {
+        ObjectName name = fastPathName(mbean, RequestType.READ);
+        if (name == null || attr == null || attr.isEmpty() || attr.contains(",")
+            || !restrictor.isAttributeReadAllowed(name, attr)) {
+            return InVmValues.UNSUPPORTED;
+        }
+        try {
+            return InVmValues.convert(getMBeanServer().getAttribute(name, attr));
+        } catch (JMException | RuntimeException e) {
+            // Let the Jolokia pipeline report the error in its usual form
+            return InVmValues.UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Reads the attributes of a single MBean straight from the MBeanServer with one call, like
+     * {@link #fastRead}, adding the values it could convert to the outcomes.
+     */
+    private void fastReadAll(String mbean, List<String> attrs, Map<String, JSONObject> outcomes) {
+        ObjectName name = fastPathName(mbean, RequestType.READ);
+        if (name == null) {
+            return;
+        }
+        String[] allowed = attrs.stream()
+            .filter(attr -> attr != null && !attr.isEmpty() && !attr.contains(",")
+                && restrictor.isAttributeReadAllowed(name, attr))
+            .distinct()
+            .toArray(String[]::new);
+        if (allowed.length == 0) {
+            return;
+        }
+        try {
+            for (Attribute attribute : getMBeanServer().getAttributes(name, allowed).asList()) {
+                Object value = InVmValues.convert(attribute.getValue());
+                if (value != InVmValues.UNSUPPORTED) {
+                    outcomes.put(attribute.getName(), outcome("value", value));
+                }
+            }
+        } catch (JMException | RuntimeException e) {
+            // Let the Jolokia pipeline report the errors in its usual form
+        }
+    }
+
+    /**
+     * Returns the index of the operations of the MBean straight from the MBeanServer, or {@code null}
+     * if the exec must go through the Jolokia pipeline instead.
+     */
+    private OperationIndex fastOperations(String mbean) {
+        ObjectName name = fastPathName(mbean, RequestType.EXEC);
+        if (name == null) {
+            return null;
+        }
+        MBeanOperationInfo[] operations;
+        try {
+            operations = getMBeanServer().getMBeanInfo(name).getOperations();
+        } catch (JMException | RuntimeException e) {
+            // Let the Jolokia pipeline report the error in its usual form
+            return null;
+        }
+        Map<String, Object> ops = new HashMap<>();
+        for (MBeanOperationInfo operation : operations) {
+            List<Map<String, Object>> params = new ArrayList<>();
+            for (MBeanParameterInfo param : operation.getSignature()) {
+                params.add(Map.of("type", param.getType()));
+            }
+            Map<String, Object> descriptor = new HashMap<>();
+            descriptor.put("args", params);
+            descriptor.put("ret", operation.getReturnType());
+            Object previous = ops.get(operation.getName());
+            if (previous == null) {
+                ops.put(operation.getName(), descriptor);
+            } else if (previous instanceof List<?> overloads) {
+                @SuppressWarnings("unchecked")
+                List<Object> list = (List<Object>) overloads;
+                list.add(descriptor);
+            } else {
+                ops.put(operation.getName(), new ArrayList<>(List.of(previous, descriptor)));
+            }
+        }
+        return OperationIndex.of(ops);
+    }
+
+    /**
+     * Invokes an operation straight on the MBeanServer, as long as its signature is known, all
+     * arguments are primitives, their wrappers or strings, and its declared result is of a type that
+     * is converted without the Jolokia serializer.
+     *
+     * @param descriptor metadata of the operation (overload) to invoke
+     * @return the converted result, or {@link InVmValues#UNSUPPORTED} if the operation must be
+     * executed through the Jolokia pipeline instead
+     */
+    private Object fastExec(String mbean, String op, Map<?, ?> descriptor, Object[] args) {
+        ObjectName name = fastPathName(mbean, RequestType.EXEC);
+        if (name == null || !InVmValues.isConvertible(OperationIndex.returnType(descriptor))
+            || !restrictor.isOperationAllowed(name, op)) {
+            return InVmValues.UNSUPPORTED;
+        }
+        Object[] arguments = args == null ? new Object[0] : args;
+        List<String> types = OperationIndex.parameterTypes(descriptor);
+        if (types == null) {
+            return InVmValues.UNSUPPORTED;
+        }
+        Object[] params = InVmValues.convertArguments(types, arguments);
+        if (params == null) {
+            return InVmValues.UNSUPPORTED;
+        }
+        Object result;
+        try {
+            result = getMBeanServer().invoke(name, op, params, types.toArray(new String[0]));
+        } catch (JMException | RuntimeException e) {
+            // The operation may have had side effects, so it mustn't be retried through the pipeline
+            throw new IllegalStateException("Error executing %s on %s: %s".formatted(op, mbean, e.getMessage()), e);
+        }
+        Object value = InVmValues.convert(result);
+        if (value == InVmValues.UNSUPPORTED) {
+            // Never happens for the convertible types, and an executed operation mustn't be retried
+            throw new IllegalStateException("Cannot convert result of %s on %s: %s".formatted(op, mbean, result));
+        }
+        return value;
+    }
+
+    private ObjectName fastPathName(String mbean, RequestType type) {
+        if (!fastPath || !restrictor.isTypeAllowed(type)) {
+            return null;
+        }
+        try {
+            ObjectName name = new ObjectName(mbean);
+            return name.isPattern() ? null : name;
+        } catch (MalformedObjectNameException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.jolokia.server.core.request.BadRequestException;
+import org.jolokia.server.core.request.EmptyResponseException;
+import org.jolokia.server.core.request.JolokiaRequestFactory;
+import org.jolokia.server.core.request.ProcessingParameters;
+import org.jolokia.server.core.service.api.JolokiaContext;
+import org.jolokia.server.core.util.RequestType;
+import org.jolokia.server.core.vm.InVmRequestHandler;
+
+/**
+ * Request handler that also reads multiple attributes and inner paths of their values with a single
+ * Jolokia request, so that the projection is done by the Jolokia serializer and only the requested
+ * parts of the values are converted to JSON.
+ */
+class InVmReadHandler extends InVmRequestHandler {
+
+    InVmReadHandler(JolokiaContext context) {
+        super(context);
+    }
+
+    /**
+     * Reads the attributes of the MBean. With a single attribute, the value of the response is the
+     * attribute value; with multiple attributes, it is a JSON object of the attribute names to their
+     * values.
+     *
+     * @param path Jolokia inner path into the attribute values, or {@code null} to read the whole values
+     */
+    JSONObject handleRead(String mbean, List<String> attributes, String path)
+        throws EmptyResponseException, BadRequestException {
+        JSONObject request = new JSONObject();
+        request.put("type", RequestType.READ.getName());
+        request.put("mbean", mbean);
+        if (attributes.size() == 1) {
+            request.put("attribute", attributes.get(0));
+        } else {
+            JSONArray names = new JSONArray();
+            names.addAll(attributes);
+            request.put("attribute", names);
+        }
+        if (path != null && !path.isEmpty()) {
+            request.put("path", path);
+        }
+        return executeRequest(JolokiaRequestFactory.createPostRequest(request, new ProcessingParameters(new HashMap<>())));
+    }
+}
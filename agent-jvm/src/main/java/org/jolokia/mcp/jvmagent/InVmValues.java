@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+
+/**
+ * Lightweight conversion of JMX values to the same JSON structures that Jolokia's serializer
+ * produces, for the values that need no more than copying: scalars, {@link ObjectName}s, arrays,
+ * collections, maps and {@link CompositeData} made of them.
+ * <p>
+ * Anything else (e.g. {@code TabularData}, dates, or arbitrary beans) isn't converted, and
+ * {@link #UNSUPPORTED} is returned instead so that the caller can fall back to the full Jolokia
+ * request pipeline.
+ */
+final class InVmValues {
+
+    /**
+     * Marker for a value that can't be converted without the Jolokia serializer.
+     */
+    static final Object UNSUPPORTED = new Object();
+
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * Declared types whose values are always converted, i.e. whose conversion can be relied on
+     * before the value is known, e.g. for the result of an operation that can't be executed twice.
+     */
+    private static final Set<String> CONVERTIBLE_TYPES = Set.of(
+        "void", "java.lang.Void", "java.lang.String", "java.lang.Character", "char",
+        "int", "long", "short", "byte", "double", "float", "boolean",
+        "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte",
+        "java.lang.Double", "java.lang.Float", "java.lang.Boolean",
+        "java.math.BigInteger", "java.math.BigDecimal", "javax.management.ObjectName",
+        "[I", "[J", "[S", "[B", "[D", "[F", "[Z", "[C", "[Ljava.lang.String;");
+
+    private InVmValues() {
+    }
+
+    /**
+     * Checks whether all values of the given declared type are converted by {@link #convert(Object)}.
+     */
+    static boolean isConvertible(String type) {
+        return type != null && CONVERTIBLE_TYPES.contains(type);
+    }
+
+    static Object convert(Object value) {
+        return convert(value, 0);
+    }
+
+    private static Object convert(Object value, int depth) {
+        if (value == null || value instanceof String || value instanceof Boolean || isNumber(value)) {
+            return value;
+        }
+        if (depth >= MAX_DEPTH) {
+            return UNSUPPORTED;
+        }
+        if (value instanceof Character || value instanceof Enum<?>) {
+            return value.toString();
+        }
+        if (value instanceof ObjectName name) {
+            JSONObject json = new JSONObject();
+            json.put("objectName", name.getCanonicalName());
+            return json;
+        }
+        if (value instanceof CompositeData data) {
+            JSONObject json = new JSONObject();
+            for (String key : data.getCompositeType().keySet()) {
+                Object converted = convert(data.get(key), depth + 1);
+                if (converted == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                json.put(key, converted);
+            }
+            return json;
+        }
+        if (value instanceof Map<?, ?> map) {
+            JSONObject json = new JSONObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object converted = convert(entry.getValue(), depth + 1);
+                if (converted == UNSUPPORTED) {
+                    return UNSUPPORTED;
+                }
+                json.put(String.valueOf(entry.getKey()), converted);
+            }
+            return json;
+        }
+        if (value instanceof Collection<?> collection) {
+            return convertElements(collection.toArray(), depth);
+        }
+        if (value.getClass().isArray()) {
+            if (!value.getClass().getComponentType().isPrimitive()) {
+                return convertElements((Object[]) value, depth);
+            }
+            JSONArray json = new JSONArray();
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                Object element = Array.get(value, i);
+                json.add(element instanceof Character ? element.toString() : element);
+            }
+            return json;
+        }
+        return UNSUPPORTED;
+    }
+
+    private static Object convertElements(Object[] elements, int depth) {
+        JSONArray json = new JSONArray();
+        for (Object element : elements) {
+            Object converted = convert(element, depth + 1);
+            if (converted == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            json.add(converted);
+        }
+        return json;
+    }
+
+    private static boolean isNumber(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Double
+            || value instanceof Float || value instanceof Short || value instanceof Byte
+            || value instanceof BigInteger || value instanceof BigDecimal;
+    }
+
+    /**
+     * Converts JSON argument values to the parameter types of an operation, for the types that are
+     * simple to convert: primitives, their wrappers and strings.
+     *
+     * @return converted arguments, or {@code null} if any of them isn't of a simple type
+     */
+    static Object[] convertArguments(List<String> types, Object[] args) {
+        Object[] converted = new Object[types.size()];
+        for (int i = 0; i < converted.length; i++) {
+            Object arg = args[i];
+            String type = types.get(i);
+            if (arg == null) {
+                if (type.indexOf('.') < 0) {
+                    // Primitive
+                    return null;
+                }
+                continue;
+            }
+            Object value = convertArgument(type, arg);
+            if (value == null) {
+                return null;
+            }
+            converted[i] = value;
+        }
+        return converted;
+    }
+
+    private static Object convertArgument(String type, Object arg) {
+        try {
+            return switch (type) {
+            case "java.lang.String" -> arg instanceof String ? arg : null;
+            case "int", "java.lang.Integer" -> arg instanceof Number n ? n.intValue() : Integer.valueOf(text(arg));
+            case "long", "java.lang.Long" -> arg instanceof Number n ? n.longValue() : Long.valueOf(text(arg));
+            case "double", "java.lang.Double" -> arg instanceof Number n ? n.doubleValue() : Double.valueOf(text(arg));
+            case "float", "java.lang.Float" -> arg instanceof Number n ? n.floatValue() : Float.valueOf(text(arg));
+            case "short", "java.lang.Short" -> arg instanceof Number n ? n.shortValue() : Short.valueOf(text(arg));
+            case "byte", "java.lang.Byte" -> arg instanceof Number n ? n.byteValue() : Byte.valueOf(text(arg));
+            case "boolean", "java.lang.Boolean" -> arg instanceof Boolean ? arg : Boolean.valueOf(text(arg));
+            default -> null;
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String text(Object arg) {
+        if (!(arg instanceof String text)) {
+            throw new NumberFormatException("Not a string: " + arg);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the metrics of the MCP server in the JVM agent in memory and exposes them as the
+ * {@value #OBJECT_NAME} MBean of the platform MBeanServer, since the agent doesn't ship a metrics
+ * backend of its own.
+ */
+@ApplicationScoped
+public class JmxMetricsExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmxMetricsExporter.class);
+
+    static final String OBJECT_NAME = "org.jolokia.mcp:type=Metrics";
+
+    @Inject
+    MeterRegistry registry;
+
+    private ObjectName objectName;
+
+    /**
+     * Registry that the meters are recorded to; Quarkus adds it to the composite registry that the
+     * application injects.
+     */
+    @Produces
+    @Singleton
+    SimpleMeterRegistry simpleMeterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MeterRegistryMBean(registry), name);
+                objectName = name;
+            }
+        } catch (JMException e) {
+            LOG.warn("Failed to register the metrics MBean {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOG.debug("Failed to unregister the metrics MBean {}: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+}
@@ -19,6 +19,8 @@ package org.jolokia.mcp.jvmagent;
 import java.lang.instrument.Instrumentation;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import io.quarkus.runtime.Quarkus;
 import org.jolokia.core.util.EscapeUtil;
@@ -29,49 +31,155 @@ public class JvmAgent {
     public static final String QUARKUS_HTTP_PORT = "quarkus.http.port";
     public static final int DEFAULT_PORT = 8779;
 
+    /**
+     * Agent argument selecting what a dynamic attach does: {@value #MODE_START} (default) or {@value #MODE_STOP}.
+     */
+    public static final String MODE = "mode";
+    public static final String MODE_START = "start";
+    public static final String MODE_STOP = "stop";
+
+    /**
+     * Agent argument for the MCP HTTP port, as a shorthand for {@value #QUARKUS_HTTP_PORT}.
+     */
+    public static final String PORT = "port";
+
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+
+    private static final System.Logger LOG = System.getLogger("org.jolokia.mcp");
+
     private static Instrumentation instrumentation;
 
+    private static final Object lock = new Object();
+    private static Thread jolokiaStartThread;
+    private static volatile CountDownLatch jolokiaStarted = new CountDownLatch(1);
+
     /**
      * Entry point for the agent, using command line attach
      * (that is via -javaagent command line argument)
+     * <p>
+     * An exception here would abort the startup of the application, so invalid arguments are
+     * reported and the agent is started with the defaults instead.
      *
      * @param agentArgs arguments as given on the command line
      */
     public static void premain(String agentArgs, Instrumentation inst) {
-        startAgent(inst);
+        Map<String, String> args;
+        try {
+            args = split(agentArgs);
+        } catch (IllegalArgumentException e) {
+            LOG.log(System.Logger.Level.ERROR, e.getMessage() + "; starting with the default options");
+            args = new HashMap<>();
+        }
+        try {
+            startAgent(args, inst);
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "jolokia mcp: Cannot start agent", e);
+        }
     }
 
     /**
      * Entry point for the agent, using dynamic attach.
      * (this is a post VM initialisation attachment, via com.sun.attach)
+     * <p>
+     * With {@code mode=stop}, the running agent is stopped and releases its port and threads. Otherwise,
+     * the agent is started, or restarted if it's already running so that the new arguments take effect.
+     * If the running agent can't be stopped, the attach fails instead.
      *
      * @param agentArgs arguments as given on the command line
      */
     public static void agentmain(String agentArgs, Instrumentation inst) {
-        // TODO: impl stop mode
-        startAgent(inst);
+        Map<String, String> args = split(agentArgs);
+        String mode = args.getOrDefault(MODE, MODE_START);
+        args.remove(MODE);
+        switch (mode) {
+        case MODE_START -> {
+            stopAgent();
+            startAgent(args, inst);
+        }
+        case MODE_STOP -> stopAgent();
+        default -> throw new IllegalArgumentException("jolokia mcp: Invalid mode '" + mode + "'");
+        }
     }
 
-    private static void startAgent(Instrumentation inst) {
-        instrumentation = inst;
+    private static void startAgent(Map<String, String> args, Instrumentation inst) {
+        synchronized (lock) {
+            instrumentation = inst;
 
-        Thread jolokiaStartThread = new Thread("JolokiaStart") {
-            @Override
-            public void run() {
-                Map<String, String> mcpConfig = new HashMap<>();
-                mcpConfig.putIfAbsent(QUARKUS_HTTP_PORT, Integer.toString(DEFAULT_PORT));
-                JolokiaMcpConfigSource.setup(mcpConfig, false);
-                Quarkus.run();
-            }
-        };
-        jolokiaStartThread.setDaemon(true);
+            Map<String, String> mcpConfig = new HashMap<>();
+            args.forEach((key, value) -> mcpConfig.put(PORT.equals(key) ? QUARKUS_HTTP_PORT : key, value));
+            mcpConfig.putIfAbsent(QUARKUS_HTTP_PORT, Integer.toString(DEFAULT_PORT));
+
+            Thread thread = new Thread("JolokiaStart") {
+                @Override
+                public void run() {
+                    // Settings of a previous attach must not leak into this one
+                    JolokiaMcpConfigSource.clear();
+                    JolokiaMcpConfigSource.setup(mcpConfig, false);
+                    // Never exit the JVM of the application the agent is attached to
+                    Quarkus.run(null, (exitCode, error) -> {
+                        if (error != null) {
+                            LOG.log(System.Logger.Level.ERROR, "jolokia mcp: Agent stopped with an error", error);
+                        }
+                    });
+                }
+            };
+            thread.setDaemon(true);
+            jolokiaStarted = new CountDownLatch(1);
 
-        // Ensure LogManager is initialized before starting the JolokiaStart thread.
-        // https://github.com/jolokia/jolokia/issues/535 - sun.net.httpserver.ServerImpl constructor may also
-        // concurrently lead to LogManager initialization
-        System.getLogger("org.jolokia.mcp");
+            // Ensure LogManager is initialized before starting the JolokiaStart thread.
+            // https://github.com/jolokia/jolokia/issues/535 - sun.net.httpserver.ServerImpl constructor may also
+            // concurrently lead to LogManager initialization
+            System.getLogger("org.jolokia.mcp");
 
-        jolokiaStartThread.start();
+            thread.start();
+            jolokiaStartThread = thread;
+        }
+    }
+
+    /**
+     * Called by {@link JvmAgentLifecycle} once Quarkus has started.
+     */
+    static void started() {
+        jolokiaStarted.countDown();
+    }
+
+    /**
+     * Shuts down Quarkus, which destroys the beans (and with them the Jolokia services and the
+     * executor threads) and closes the HTTP port, and waits for it to finish.
+     * <p>
+     * A shutdown requested while Quarkus is still starting may be lost, so it first waits for the
+     * startup to finish (or fail).
+     *
+     * @throws IllegalStateException if the agent doesn't stop in time, which a dynamic attach
+     *                               reports to the attaching tool
+     */
+    private static void stopAgent() {
+        synchronized (lock) {
+            Thread thread = jolokiaStartThread;
+            if (thread == null || !thread.isAlive()) {
+                jolokiaStartThread = null;
+                return;
+            }
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+            try {
+                while (thread.isAlive() && !jolokiaStarted.await(100, TimeUnit.MILLISECONDS)
+                    && System.currentTimeMillis() < deadline) {
+                    // Wait for the startup to finish, or the start thread to end if it fails
+                }
+                if (thread.isAlive()) {
+                    Quarkus.asyncExit();
+                    thread.join(Math.max(deadline - System.currentTimeMillis(), 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                // Kept, so that another stop can try again
+                throw new IllegalStateException(
+                    "jolokia mcp: Agent not stopped after " + STOP_TIMEOUT_MILLIS + " ms");
+            }
+            jolokiaStartThread = null;
+        }
     }
 
     private static Map<String, String> split(String agentArgs) {
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exposes the meters of a {@link MeterRegistry} as read-only attributes of an MBean, so that the
+ * metrics of the MCP server in the JVM agent can be read with any JMX client, including Jolokia
+ * itself.
+ * <p>
+ * Each measurement of a meter is an attribute named {@code <meter>.<statistic>{tag=value;...}},
+ * e.g. {@code jolokia.mcp.tool.calls.count{outcome=success;target=default;tool=listMBeans}}.
+ */
+public class MeterRegistryMBean implements DynamicMBean {
+
+    private final MeterRegistry registry;
+
+    public MeterRegistryMBean(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    Map<String, Double> measurements() {
+        Map<String, Double> measurements = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            Meter.Id id = meter.getId();
+            String tags = id.getTags().isEmpty() ? "" : id.getTags().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(";", "{", "}"));
+            for (Measurement measurement : meter.measure()) {
+                String statistic = measurement.getStatistic().getTagValueRepresentation();
+                measurements.put(id.getName() + "." + statistic + tags, measurement.getValue());
+            }
+        }
+        return measurements;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double value = measurements().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No such metric: " + attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> measurements = measurements();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            if (measurements.containsKey(attribute)) {
+                list.add(new Attribute(attribute, measurements.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] attributes = measurements().keySet().stream()
+            .map(name -> new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false))
+            .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(getClass().getName(), "Metrics of the Jolokia MCP server", attributes,
+            null, null, null);
+    }
+}
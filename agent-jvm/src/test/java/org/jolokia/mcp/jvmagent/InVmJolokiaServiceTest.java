@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import javax.management.ObjectName;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.jolokia.mcp.JolokiaMcpMetrics;
+import org.jolokia.mcp.MBeanAttribute;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InVmJolokiaServiceTest {
+
+    public interface HelloMBean {
+        int getCount();
+
+        void setCount(int count);
+
+        String echo(String message);
+
+        int add(int a, int b);
+
+        Date started();
+    }
+
+    public static class Hello implements HelloMBean {
+        private int count;
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Override
+        public Date started() {
+            return new Date(0);
+        }
+    }
+
+    private static final String HELLO = "test:type=Hello";
+
+    private InVmJolokiaService service;
+
+    private InVmJolokiaService service(String mbeanListCacheMode) {
+        return service(mbeanListCacheMode, 10, true);
+    }
+
+    private InVmJolokiaService service(String mbeanListCacheMode, int mbeanInfoCacheMaxSize, boolean fastPath) {
+        if (service != null) {
+            service.destroy();
+        }
+        service = new InVmJolokiaService();
+        service.mbeanListCacheMode = mbeanListCacheMode;
+        service.mbeanInfoCacheMaxSize = mbeanInfoCacheMaxSize;
+        service.lazy = true;
+        service.fastPath = fastPath;
+        service.init();
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.destroy();
+            service = null;
+        }
+        ObjectName hello = new ObjectName(HELLO);
+        if (ManagementFactory.getPlatformMBeanServer().isRegistered(hello)) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(hello);
+        }
+    }
+
+    @Test
+    void testListMBeansNotificationMode() throws Exception {
+        var service = service(InVmJolokiaService.MBEAN_LIST_CACHE_NOTIFICATION);
+        var registry = new SimpleMeterRegistry();
+        service.bindMetrics(registry, Tags.empty());
+        assertFalse(service.listMBeans().contains(HELLO));
+
+        // Registrations are applied to the cached list without fetching it again
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Hello(), new ObjectName(HELLO));
+        assertTrue(service.listMBeans().contains(HELLO));
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(HELLO));
+        assertFalse(service.listMBeans().contains(HELLO));
+
+        assertEquals(1, registry.find(JolokiaMcpMetrics.CACHE_MISSES).tags("cache", "mbean-list")
+            .functionCounter().count());
+        assertEquals(2, registry.find(JolokiaMcpMetrics.CACHE_HITS).tags("cache", "mbean-list")
+            .functionCounter().count());
+    }
+
+    @Test
+    void testFastPathParity() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Hello(), new ObjectName(HELLO));
+        List<Object> fast = readAndExec(service("none", 10, true));
+        List<Object> slow = readAndExec(service("none", 10, false));
+        assertEquals(slow, fast);
+
+        // Results that the fast path can't convert are serialized by Jolokia, not with toString()
+        assertNotEquals(new Date(0).toString(), fast.get(fast.size() - 1));
+    }
+
+    private static List<Object> readAndExec(InVmJolokiaService service) throws Exception {
+        List<Object> results = new ArrayList<>();
+        results.add(service.read("java.lang:type=Runtime", "VmName").orElse(null));
+        results.add(service.read("java.lang:type=Runtime", "InputArguments").orElse(null));
+        results.add(service.read("java.lang:type=Memory", "ObjectName").orElse(null));
+        results.add(service.read(HELLO, "Count").orElse(null));
+        results.add(service.exec(HELLO, "echo", "hi").orElse(null));
+        results.add(service.exec(HELLO, "add", 1, "2").orElse(null));
+        results.add(service.exec(HELLO, "started").orElse(null));
+        return results;
+    }
+
+    @Test
+    void testReadWithPath() throws Exception {
+        var service = service("none");
+        var used = service.read("java.lang:type=Memory", List.of("HeapMemoryUsage"), "used").orElseThrow();
+        assertTrue(used instanceof Number);
+
+        var values = (JSONObject) service.read("java.lang:type=Memory",
+            List.of("HeapMemoryUsage", "NonHeapMemoryUsage"), "used").orElseThrow();
+        assertEquals(Set.of("HeapMemoryUsage", "NonHeapMemoryUsage"), values.keySet());
+        values.values().forEach(value -> assertTrue(value instanceof Number));
+
+        assertThrows(IllegalArgumentException.class, () -> service.read("java.lang:type=Memory", List.of(), null));
+    }
+
+    @Test
+    void testFastExecSkipsJolokia() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Hello(), new ObjectName(HELLO));
+        var service = service("none", 0, true);
+        assertEquals(3, service.exec(HELLO, "add", 1, 2).orElse(null));
+        // The signature is resolved from the MBeanServer, without a Jolokia list
+        assertEquals(0, service.mbeanInfoCache.getMisses());
+        assertFalse(service.isStarted());
+    }
+
+    @Test
+    void testExecListsOperationsOnce() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Hello(), new ObjectName(HELLO));
+        // Without the metadata cache, each lookup of the operations is a miss
+        var service = service("none", 0, false);
+        assertEquals(3, service.exec(HELLO, "add", 1, 2).orElse(null));
+        assertEquals(1, service.mbeanInfoCache.getMisses());
+    }
+
+    @Test
+    void testReadAttributes() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Hello(), new ObjectName(HELLO));
+        var attributes = List.of(
+            new MBeanAttribute(HELLO, "Count"),
+            new MBeanAttribute("java.lang:type=Runtime", "Name"),
+            new MBeanAttribute(HELLO, "Missing"),
+            new MBeanAttribute("java.lang:type=Runtime", "VmName"));
+        JSONArray fast = service("none", 10, true).readAttributes(attributes);
+        JSONArray slow = service("none", 10, false).readAttributes(attributes);
+        assertEquals(slow, fast);
+        assertEquals(4, fast.size());
+        assertEquals(0, ((Number) ((JSONObject) fast.get(0)).get("value")).intValue());
+        assertEquals(ManagementFactory.getRuntimeMXBean().getName(), ((JSONObject) fast.get(1)).get("value"));
+        // A failing attribute doesn't fail the others of the same MBean
+        assertTrue(((JSONObject) fast.get(2)).containsKey("error"));
+        assertEquals(ManagementFactory.getRuntimeMXBean().getVmName(), ((JSONObject) fast.get(3)).get("value"));
+    }
+
+    @Test
+    void testFastReadAttributesSkipsJolokia() throws Exception {
+        var service = service("none", 10, true);
+        JSONArray result = service.readAttributes(List.of(
+            new MBeanAttribute("java.lang:type=Runtime", "Name"),
+            new MBeanAttribute("java.lang:type=Runtime", "VmName")));
+        assertEquals(ManagementFactory.getRuntimeMXBean().getVmName(), ((JSONObject) result.get(1)).get("value"));
+        assertFalse(service.isStarted());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InVmValuesTest {
+
+    @Test
+    void testScalars() {
+        assertNull(InVmValues.convert(null));
+        assertEquals("text", InVmValues.convert("text"));
+        assertEquals(42, InVmValues.convert(42));
+        assertEquals(new BigDecimal("1.5"), InVmValues.convert(new BigDecimal("1.5")));
+        assertEquals(true, InVmValues.convert(true));
+        assertEquals("c", InVmValues.convert('c'));
+        assertEquals("SECONDS", InVmValues.convert(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStructures() throws Exception {
+        var name = new JSONObject();
+        name.put("objectName", "java.lang:name=a,type=B");
+        assertEquals(name, InVmValues.convert(new ObjectName("java.lang:type=B,name=a")));
+
+        assertEquals(List.of(1L, 2L), InVmValues.convert(new long[] {1, 2}));
+        assertEquals(List.of("a", "b"), InVmValues.convert(new char[] {'a', 'b'}));
+        assertEquals(List.of("x", List.of(1)), InVmValues.convert(List.of("x", List.of(1))));
+        assertEquals(Map.of("k", List.of("v")), InVmValues.convert(Map.of("k", new String[] {"v"})));
+
+        var heap = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("java.lang:type=Memory"), "HeapMemoryUsage");
+        var json = (JSONObject) InVmValues.convert(heap);
+        assertEquals(MemoryUsage.from(heap).getMax(), json.get("max"));
+        assertEquals(heap.getCompositeType().keySet(), json.keySet());
+    }
+
+    @Test
+    void testUnsupported() throws Exception {
+        assertSame(InVmValues.UNSUPPORTED, InVmValues.convert(new Date()));
+        assertSame(InVmValues.UNSUPPORTED, InVmValues.convert(new Object()));
+        // Unsupported anywhere inside the value
+        assertSame(InVmValues.UNSUPPORTED, InVmValues.convert(List.of("a", new Date())));
+        var properties = (TabularData) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("java.lang:type=Runtime"), "SystemProperties");
+        assertSame(InVmValues.UNSUPPORTED, InVmValues.convert(properties));
+    }
+
+    @Test
+    void testConvertible() {
+        assertTrue(InVmValues.isConvertible("void"));
+        assertTrue(InVmValues.isConvertible("java.lang.String"));
+        assertTrue(InVmValues.isConvertible("[J"));
+        assertFalse(InVmValues.isConvertible("java.util.Date"));
+        assertFalse(InVmValues.isConvertible("javax.management.openmbean.CompositeData"));
+        assertFalse(InVmValues.isConvertible("java.lang.Object"));
+        assertFalse(InVmValues.isConvertible(null));
+    }
+
+    @Test
+    void testConvertArguments() {
+        assertArrayEquals(new Object[] {5, 6L, "s", true, null},
+            InVmValues.convertArguments(
+                List.of("int", "java.lang.Long", "java.lang.String", "boolean", "java.lang.Integer"),
+                new Object[] {5L, "6", "s", "true", null}));
+        // Not a simple type, a null primitive, and an unparsable number
+        assertNull(InVmValues.convertArguments(List.of("[J"), new Object[] {List.of(1L)}));
+        assertNull(InVmValues.convertArguments(List.of("int"), new Object[] {null}));
+        assertNull(InVmValues.convertArguments(List.of("int"), new Object[] {"one"}));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.tools.attach.VirtualMachine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Attaches the packaged agent jar to a separate JVM, so it needs the {@code package} phase and runs as
+ * integration test ({@code mvn verify -DskipITs=false}).
+ */
+class JvmAgentIT {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private Path agentJar;
+    private Path classpath;
+    private Process process;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(Path.of("target"), "*-javaagent.jar")) {
+            for (Path jar : jars) {
+                agentJar = jar.toAbsolutePath();
+            }
+        }
+        assertNotNull(agentJar, "No agent jar in target; run the package phase first");
+
+        // The application only needs the idle main class, so that it doesn't share any classes with the agent
+        classpath = Files.createTempDirectory("jolokia-mcp-agent-it");
+        String resource = Idle.class.getName().replace('.', '/') + ".class";
+        Path classFile = classpath.resolve(resource);
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = Idle.class.getClassLoader().getResourceAsStream(resource)) {
+            Files.copy(in, classFile);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    void testStopAndRestart() throws Exception {
+        startApplication();
+        int port = freePort();
+        VirtualMachine vm = VirtualMachine.attach(Long.toString(process.pid()));
+        try {
+            vm.loadAgent(agentJar.toString(), "port=" + port);
+            awaitAnswer(port);
+
+            vm.loadAgent(agentJar.toString(), "mode=stop");
+            assertFalse(isOpen(port), "Port still open after stopping the agent");
+
+            vm.loadAgent(agentJar.toString(), "port=" + port);
+            awaitAnswer(port);
+        } finally {
+            vm.detach();
+        }
+        assertTrue(process.isAlive());
+    }
+
+    @Test
+    void testInvalidArguments() throws Exception {
+        // An invalid option must neither abort the startup of the application nor make the agent fail
+        startApplication("-javaagent:" + agentJar + "=invalid");
+        assertTrue(process.isAlive());
+    }
+
+    private void startApplication(String... jvmArgs) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(jvmArgs));
+        command.addAll(List.of("-Dquarkus.log.file.enable=false", "-cp", classpath.toString(), Idle.class.getName()));
+        process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.equals(Idle.STARTED)) {
+                // Keep draining the output so that the application never blocks on it
+                Thread drain = new Thread(() -> output.lines().forEach(ignored -> {
+                }));
+                drain.setDaemon(true);
+                drain.start();
+                return;
+            }
+        }
+        fail("Application exited with " + process.waitFor());
+    }
+
+    private static void awaitAnswer(int port) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/mcp".formatted(port))).build();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (isOpen(port)) {
+                // Any HTTP response proves that the server answers; the body may be a stream, so don't read it
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                response.body().close();
+                assertTrue(response.statusCode() < 500, "Status " + response.statusCode());
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Port %d not open after %d ms".formatted(port, TIMEOUT_MILLIS));
+    }
+
+    private static boolean isOpen(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 100);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Application that does nothing but keep the JVM, and thus the agent, running.
+     */
+    public static class Idle {
+
+        static final String STARTED = "Idle application started";
+
+        public static void main(String[] args) throws InterruptedException {
+            System.out.println(STARTED);
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Registers a configurable number of MBeans with a configurable payload size to the platform
+ * MBeanServer, so that benchmarks can be parameterized by MBean count and payload size.
+ */
+public class BenchmarkMBeans {
+
+    public static final String DOMAIN = "jolokia.mcp.benchmark";
+
+    public interface PayloadMBean {
+        String getData();
+
+        long getCounter();
+
+        String echo(String message);
+    }
+
+    public static class Payload implements PayloadMBean {
+
+        private final String data;
+        private long counter;
+
+        public Payload(int size) {
+            this.data = "x".repeat(size);
+        }
+
+        @Override
+        public String getData() {
+            return data;
+        }
+
+        @Override
+        public long getCounter() {
+            return counter++;
+        }
+
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    private final List<ObjectName> names = new ArrayList<>();
+
+    public static String name(int index) {
+        return DOMAIN + ":type=Payload,name=payload-" + index;
+    }
+
+    public void register(int count, int payloadSize) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int i = 0; i < count; i++) {
+            ObjectName name = new ObjectName(name(i));
+            server.registerMBean(new StandardMBean(new Payload(payloadSize), PayloadMBean.class), name);
+            names.add(name);
+        }
+    }
+
+    public void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : names) {
+            server.unregisterMBean(name);
+        }
+        names.clear();
+    }
+}
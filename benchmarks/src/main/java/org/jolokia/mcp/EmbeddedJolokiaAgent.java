@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Map;
+
+import org.eclipse.jetty.http.UriCompliance;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.jolokia.server.core.http.AgentServlet;
+
+/**
+ * Embedded Jetty with the Jolokia {@link AgentServlet}, set up in the same way as the
+ * {@code JettyTestResource} of the server tests.
+ */
+public class EmbeddedJolokiaAgent {
+
+    private Server jettyServer;
+
+    public String start() throws Exception {
+        jettyServer = new Server(0);
+        var compliance = UriCompliance.DEFAULT.with("JOLOKIA", UriCompliance.Violation.AMBIGUOUS_EMPTY_SEGMENT);
+        var connFactory = (HttpConnectionFactory) jettyServer.getConnectors()[0].getDefaultConnectionFactory();
+        connFactory.getHttpConfiguration().setUriCompliance(compliance);
+        var context = new ServletContextHandler(jettyServer, "/");
+        var servlet = new ServletHolder(new AgentServlet());
+        servlet.setInitParameters(Map.of("includeStackTrace", "false", "discoveryEnabled", "false"));
+        context.addServlet(servlet, "/jolokia/*");
+        jettyServer.start();
+        int port = ((ServerConnector) jettyServer.getConnectors()[0]).getLocalPort();
+        return "http://localhost:%s/jolokia".formatted(port);
+    }
+
+    public void stop() throws Exception {
+        if (jettyServer != null) {
+            jettyServer.stop();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link JolokiaClient} against an embedded Jolokia agent over HTTP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JolokiaClientBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int mbeanCount;
+
+    @Param({"16", "1024", "65536"})
+    int payloadSize;
+
+    private final BenchmarkMBeans mbeans = new BenchmarkMBeans();
+    private final EmbeddedJolokiaAgent agent = new EmbeddedJolokiaAgent();
+    private JolokiaClient client;
+    private String mbean;
+    private List<MBeanAttribute> bulkAttributes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mbeans.register(mbeanCount, payloadSize);
+        client = new JolokiaClient(agent.start(), Optional.empty(), 0, TransportSettings.defaults(),
+            MBeanListRefresher.defaults(Runnable::run));
+        mbean = BenchmarkMBeans.name(0);
+        bulkAttributes = new ArrayList<>();
+        for (int i = 0; i < Math.min(mbeanCount, 10); i++) {
+            bulkAttributes.add(new MBeanAttribute(BenchmarkMBeans.name(i), "Data"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        agent.stop();
+        mbeans.unregister();
+    }
+
+    /**
+     * The uncached path of {@link JolokiaClient#listMBeans()}.
+     */
+    @Benchmark
+    public List<String> listMBeans() throws Exception {
+        return client.searchMBeans("*:*");
+    }
+
+    /**
+     * Full {@code /list} tree, which {@code listMBeans} used to fetch; kept as the baseline for
+     * {@link #listMBeans()}.
+     */
+    @Benchmark
+    public JSONObject listFull() throws Exception {
+        return client.list(null);
+    }
+
+    @Benchmark
+    public JSONObject listAttributes() throws Exception {
+        return client.fetchMBeanInfo(mbean);
+    }
+
+    @Benchmark
+    public Optional<Object> read() throws Exception {
+        return client.read(mbean, "Data");
+    }
+
+    @Benchmark
+    public JSONArray readAttributes() throws Exception {
+        return client.readAttributes(bulkAttributes);
+    }
+
+    @Benchmark
+    public Optional<Object> exec() throws Exception {
+        return client.exec(mbean, "echo", "hello");
+    }
+}
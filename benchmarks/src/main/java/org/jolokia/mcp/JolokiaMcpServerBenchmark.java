@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.quarkiverse.mcp.server.ToolResponse;
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link JolokiaMcpServer} tool dispatch, including the {@link ToolResponse}
+ * construction, on top of a {@link JolokiaService} that returns precomputed results. This isolates
+ * the MCP server overhead from the cost of the Jolokia calls. Since the tools are asynchronous, each
+ * invocation also includes handing the call off to the {@link JolokiaMcpExecutor} and back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JolokiaMcpServerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int mbeanCount;
+
+    @Param({"16", "1024", "65536"})
+    int payloadSize;
+
+    @Param({"JSON", "TABLE"})
+    OutputFormat outputFormat;
+
+    private JolokiaMcpServer server;
+    private List<MBeanAttribute> bulkAttributes;
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.executor.destroy();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DefaultJolokiaTargets targets = new DefaultJolokiaTargets();
+        targets.jolokiaService = new PrecomputedJolokiaService(mbeanCount, payloadSize);
+        server = new JolokiaMcpServer();
+        server.targets = targets;
+        server.executor = new JolokiaMcpExecutor();
+        server.executor.toolLimits = Optional.empty();
+        server.executor.init();
+        server.metrics = JolokiaMcpMetrics.noop();
+        server.coalescer = ReadCoalescer.disabled();
+        server.outputFormat = outputFormat;
+        bulkAttributes = new ArrayList<>();
+        for (int i = 0; i < Math.min(mbeanCount, 10); i++) {
+            bulkAttributes.add(new MBeanAttribute(BenchmarkMBeans.name(i), "Data"));
+        }
+    }
+
+    @Benchmark
+    public ToolResponse listMBeans() {
+        return server.listMBeans(null, null, null, null, null).await().indefinitely();
+    }
+
+    @Benchmark
+    public ToolResponse listMBeansPaginated() {
+        return server.listMBeans(null, null, 0, 50, null).await().indefinitely();
+    }
+
+    @Benchmark
+    public ToolResponse listMBeanAttributes() {
+        return server.listMBeanAttributes(BenchmarkMBeans.name(0), null).await().indefinitely();
+    }
+
+    @Benchmark
+    public ToolResponse readMBeanAttribute() {
+        return server.readMBeanAttribute(BenchmarkMBeans.name(0), "Data", null, null).await().indefinitely();
+    }
+
+    @Benchmark
+    public ToolResponse readMBeanAttributes() {
+        return server.readMBeanAttributes(bulkAttributes, null).await().indefinitely();
+    }
+
+    static class PrecomputedJolokiaService extends DefaultJolokiaService {
+
+        private final List<String> mbeans = new ArrayList<>();
+        private final JSONObject attributes = new JSONObject();
+        private final JSONObject value = new JSONObject();
+
+        PrecomputedJolokiaService(int mbeanCount, int payloadSize) {
+            for (int i = 0; i < mbeanCount; i++) {
+                mbeans.add(BenchmarkMBeans.name(i));
+            }
+            // Roughly the shape of a CompositeData value and of /list attribute descriptors
+            int fields = Math.max(1, payloadSize / 16);
+            for (int i = 0; i < fields; i++) {
+                value.put("field" + i, "0123456789");
+                JSONObject desc = new JSONObject();
+                desc.put("type", "java.lang.String");
+                desc.put("desc", "Attribute " + i);
+                desc.put("rw", false);
+                attributes.put("Attribute" + i, desc);
+            }
+        }
+
+        @Override
+        public List<String> listMBeans() {
+            return mbeans;
+        }
+
+        @Override
+        public JSONObject listAttributes(String mbean) {
+            return attributes;
+        }
+
+        @Override
+        public Optional<Object> read(String mbean, String attr) {
+            return Optional.of(value);
+        }
+
+        @Override
+        public JSONArray readAttributes(List<MBeanAttribute> attributes) {
+            JSONArray result = new JSONArray();
+            for (MBeanAttribute attribute : attributes) {
+                JSONObject entry = new JSONObject();
+                entry.put("mbean", attribute.mbean());
+                entry.put("attribute", attribute.attribute());
+                entry.put("value", value);
+                result.add(entry);
+            }
+            return result;
+        }
+    }
+}
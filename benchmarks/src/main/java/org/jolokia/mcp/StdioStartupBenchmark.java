@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to the first tool response of the standalone MCP server in stdio mode, as an MCP
+ * host launching it for a session would see it: from launching the server until the response to a
+ * {@code listMBeans} call right after the MCP handshake. The {@code runtime} is either the JVM runner
+ * jar or the native executable.
+ * <p>
+ * The resident set size (RSS) of the server after the response is printed after each invocation,
+ * since it isn't a time that JMH could report; it's only available on Linux.
+ * <p>
+ * The runners are taken from the {@code jolokia.mcp.runner.jar} and {@code jolokia.mcp.runner.native}
+ * system properties, or else from {@code server/target}, so build the server, with and without
+ * {@code -Pnative}, and run from the project root:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar StdioStartupBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StdioStartupBenchmark {
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+        + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+        + "\"clientInfo\":{\"name\":\"benchmark\",\"version\":\"1.0\"}}}";
+    private static final String INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+    private static final String LIST_MBEANS = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":"
+        + "{\"name\":\"listMBeans\",\"arguments\":{\"limit\":10}}}";
+
+    @Param({"jvm", "native"})
+    String runtime;
+
+    private final EmbeddedJolokiaAgent agent = new EmbeddedJolokiaAgent();
+    private String url;
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        url = agent.start();
+        command = new ArrayList<>();
+        if ("native".equals(runtime)) {
+            command.add(findRunner("jolokia.mcp.runner.native", "*-runner").toString());
+        } else {
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-jar");
+            command.add(findRunner("jolokia.mcp.runner.jar", "*-runner.jar").toString());
+        }
+        command.add("-Dquarkus.log.file.enable=false");
+        command.add(url);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        agent.stop();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopServer() throws Exception {
+        if (process == null) {
+            return;
+        }
+        System.out.printf("%nRSS (%s): %s%n", runtime, rss(process.pid()));
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        process = null;
+    }
+
+    @Benchmark
+    public String firstToolResponse() throws Exception {
+        process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        OutputStream in = process.getOutputStream();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        send(in, INITIALIZE);
+        await(out, "\"id\":1");
+        send(in, INITIALIZED);
+        send(in, LIST_MBEANS);
+        return await(out, "\"id\":2");
+    }
+
+    private static void send(OutputStream in, String message) throws IOException {
+        in.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+        in.flush();
+    }
+
+    private static String await(BufferedReader out, String id) throws IOException {
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.contains(id)) {
+                return line;
+            }
+        }
+        throw new IllegalStateException("Server exited before responding to " + id);
+    }
+
+    private static Path findRunner(String property, String glob) throws IOException {
+        String runner = System.getProperty(property);
+        if (runner != null) {
+            return Path.of(runner);
+        }
+        try (DirectoryStream<Path> runners = Files.newDirectoryStream(Path.of("server", "target"), glob)) {
+            for (Path path : runners) {
+                if (Files.isRegularFile(path)) {
+                    return path.toAbsolutePath();
+                }
+            }
+        }
+        throw new IllegalStateException("No runner %s found in server/target; build the server or set -D%s"
+            .formatted(glob, property));
+    }
+
+    private static String rss(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        return Files.readAllLines(status).stream()
+            .filter(line -> line.startsWith("VmRSS:"))
+            .map(line -> line.substring("VmRSS:".length()).trim())
+            .findFirst()
+            .orElse("n/a");
+    }
+}
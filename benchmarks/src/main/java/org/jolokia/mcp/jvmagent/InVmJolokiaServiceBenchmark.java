@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.json.JSONObject;
+import org.jolokia.mcp.BenchmarkMBeans;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link InVmJolokiaService} against the platform MBeanServer.
+ * <p>
+ * The reads and execs are parameterized by {@code fastPath}, so that the direct MBeanServer
+ * path can be compared with the Jolokia request pipeline. Run with {@code -prof gc} to compare
+ * the allocation per call ({@code gc.alloc.rate.norm}) as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InVmJolokiaServiceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int mbeanCount;
+
+    @Param({"16", "1024", "65536"})
+    int payloadSize;
+
+    @Param({"true", "false"})
+    boolean fastPath;
+
+    private final BenchmarkMBeans mbeans = new BenchmarkMBeans();
+    private InVmJolokiaService service;
+    private String mbean;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mbeans.register(mbeanCount, payloadSize);
+        service = new InVmJolokiaService();
+        // Measure the uncached paths
+        service.mbeanListCacheMode = "none";
+        service.mbeanInfoCacheMaxSize = 0;
+        service.fastPath = fastPath;
+        service.init();
+        mbean = BenchmarkMBeans.name(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.destroy();
+        mbeans.unregister();
+    }
+
+    @Benchmark
+    public List<String> listMBeans() throws Exception {
+        return service.listMBeans();
+    }
+
+    /**
+     * Full {@code /list} tree, which {@code listMBeans} used to build; kept as the baseline for
+     * {@link #listMBeans()}.
+     */
+    @Benchmark
+    public JSONObject listFull() throws Exception {
+        return service.requestHandler().handleList(null);
+    }
+
+    @Benchmark
+    public JSONObject listAttributes() throws Exception {
+        return service.listAttributes(mbean);
+    }
+
+    @Benchmark
+    public Optional<Object> read() throws Exception {
+        return service.read(mbean, "Data");
+    }
+
+    /**
+     * {@code CompositeData} value, which the fast path converts without the Jolokia serializer.
+     */
+    @Benchmark
+    public Optional<Object> readComposite() throws Exception {
+        return service.read("java.lang:type=Memory", "HeapMemoryUsage");
+    }
+
+    @Benchmark
+    public Optional<Object> exec() throws Exception {
+        return service.exec(mbean, "echo", "hello");
+    }
+}
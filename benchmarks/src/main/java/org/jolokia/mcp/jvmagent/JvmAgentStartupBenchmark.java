@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp.jvmagent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the startup time of a JVM with the JVM agent attached, from launching the JVM until the
+ * MCP HTTP port accepts connections, with and without {@code jolokia.mcp.lazy}.
+ * <p>
+ * The resident set size (RSS) of the JVM once started is printed after each invocation, since it
+ * isn't a time that JMH could report; it's only available on Linux.
+ * <p>
+ * The agent jar is taken from the {@code jolokia.mcp.agent.jar} system property, or else from
+ * {@code agent-jvm/target}, so build the {@code agent-jvm} module first and run from the project root:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar JvmAgentStartupBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JvmAgentStartupBenchmark {
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+
+    @Param({"true", "false"})
+    boolean lazy;
+
+    private Path agentJar;
+    private Path classpath;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        agentJar = findAgentJar();
+        // The application only needs the idle main class, so that it doesn't share any classes with the agent
+        classpath = Files.createTempDirectory("jolokia-mcp-startup");
+        String resource = Idle.class.getName().replace('.', '/') + ".class";
+        Path classFile = classpath.resolve(resource);
+        Files.createDirectories(classFile.getParent());
+        try (InputStream in = Idle.class.getClassLoader().getResourceAsStream(resource)) {
+            Files.copy(in, classFile);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() throws Exception {
+        if (process == null) {
+            return;
+        }
+        System.out.printf("%nRSS (lazy=%s): %s%n", lazy, rss(process.pid()));
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        process = null;
+    }
+
+    @Benchmark
+    public Process startup() throws Exception {
+        int port = freePort();
+        process = new ProcessBuilder(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-javaagent:" + agentJar,
+            "-Djolokia.mcp.lazy=" + lazy,
+            "-Dquarkus.http.port=" + port,
+            "-Dquarkus.log.file.enable=false",
+            "-cp", classpath.toString(),
+            Idle.class.getName())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        awaitPort(port);
+        return process;
+    }
+
+    private void awaitPort(int port) throws Exception {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 100);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(5);
+            }
+        }
+        throw new TimeoutException("Port %d not open after %d ms".formatted(port, STARTUP_TIMEOUT_MILLIS));
+    }
+
+    private static Path findAgentJar() throws IOException {
+        String jar = System.getProperty("jolokia.mcp.agent.jar");
+        if (jar != null) {
+            return Path.of(jar);
+        }
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(Path.of("agent-jvm", "target"), "*-javaagent.jar")) {
+            for (Path path : jars) {
+                return path.toAbsolutePath();
+            }
+        }
+        throw new IllegalStateException("No agent jar found; build agent-jvm or set -Djolokia.mcp.agent.jar");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String rss(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        List<String> lines = Files.readAllLines(status);
+        return lines.stream()
+            .filter(line -> line.startsWith("VmRSS:"))
+            .map(line -> line.substring("VmRSS:".length()).trim())
+            .findFirst()
+            .orElse("n/a");
+    }
+
+    /**
+     * Application that does nothing but keep the JVM, and thus the agent, running.
+     */
+    public static class Idle {
+
+        public static void main(String[] args) throws InterruptedException {
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import io.smallrye.mutiny.Uni;
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+
+/**
+ * Asynchronous counterpart of {@link JolokiaService}. Each method returns a {@link Uni} that runs the
+ * corresponding blocking call on the given executor when subscribed, so that callers on the event loop
+ * never wait for a remote JMX call. Use {@link Uni#subscribeAsCompletionStage()} to get a
+ * {@link java.util.concurrent.CompletionStage} instead.
+ * <p>
+ * Read-only calls go through a {@link ReadCoalescer}, so that identical concurrent calls share one
+ * call to the target, and writes and operations evict the results it shares for their MBean. Only
+ * reads of attributes that the service knows to be read-only are cached.
+ */
+public class AsyncJolokiaService {
+
+    private final JolokiaService service;
+    private final Executor executor;
+    private final String target;
+    private final JolokiaMcpMetrics metrics;
+    private final ReadCoalescer coalescer;
+
+    public AsyncJolokiaService(JolokiaService service, Executor executor) {
+        this(service, executor, JolokiaTargets.DEFAULT, JolokiaMcpMetrics.noop());
+    }
+
+    /**
+     * @param target  name of the target of the service, for the metrics
+     * @param metrics metrics to record the latency and errors of each call to
+     */
+    public AsyncJolokiaService(JolokiaService service, Executor executor, String target, JolokiaMcpMetrics metrics) {
+        this(service, executor, target, metrics, ReadCoalescer.disabled());
+    }
+
+    /**
+     * @param target    name of the target of the service, for the metrics and for sharing calls
+     * @param metrics   metrics to record the latency and errors of each call to
+     * @param coalescer coalescer shared by all the services of the target
+     */
+    public AsyncJolokiaService(JolokiaService service, Executor executor, String target, JolokiaMcpMetrics metrics,
+                               ReadCoalescer coalescer) {
+        this.service = service;
+        this.executor = executor;
+        this.target = target;
+        this.metrics = metrics;
+        this.coalescer = coalescer;
+    }
+
+    public JolokiaService getService() {
+        return service;
+    }
+
+    public Uni<List<String>> listMBeans() {
+        return shared("listMBeans", null, List.of(), service::listMBeans);
+    }
+
+    public Uni<List<String>> searchMBeans(String pattern) {
+        return shared("searchMBeans", pattern, List.of(), () -> service.searchMBeans(pattern));
+    }
+
+    public Uni<JSONObject> listMBeanChanges(String sinceToken) {
+        return shared("listMBeanChanges", null, Arrays.asList(sinceToken), () -> service.listMBeanChanges(sinceToken));
+    }
+
+    public Uni<JSONObject> listOperations(String mbean) {
+        return shared("listOperations", mbean, List.of(), () -> service.listOperations(mbean));
+    }
+
+    public Uni<JSONObject> listAttributes(String mbean) {
+        return shared("listAttributes", mbean, List.of(), () -> service.listAttributes(mbean));
+    }
+
+    public Uni<Optional<Object>> read(String mbean, String attr) {
+        return coalescer.share(target, "read", mbean, Arrays.asList(attr), isReadOnly(mbean, List.of(attr)),
+            () -> offload("read", mbean, () -> service.read(mbean, attr)));
+    }
+
+    public Uni<Optional<Object>> read(String mbean, List<String> attrs, String path) {
+        return coalescer.share(target, "read", mbean, Arrays.asList(attrs, path), isReadOnly(mbean, attrs),
+            () -> offload("read", mbean, () -> service.read(mbean, attrs, path)));
+    }
+
+    public Uni<JSONObject> readPattern(String pattern, String attr) {
+        return shared("readPattern", pattern, Arrays.asList(attr), () -> service.readPattern(pattern, attr));
+    }
+
+    public Uni<JSONArray> readAttributes(List<MBeanAttribute> attributes) {
+        return offload("readAttributes", null, () -> service.readAttributes(attributes));
+    }
+
+    public Uni<Optional<Object>> write(String mbean, String attr, Object value) {
+        return offload("write", mbean, () -> service.write(mbean, attr, value))
+            .onTermination().invoke(() -> coalescer.evict(target, mbean));
+    }
+
+    public Uni<Optional<Object>> exec(String mbean, String op, Object... args) {
+        return offload("exec", mbean, () -> service.exec(mbean, op, args))
+            .onTermination().invoke(() -> coalescer.evict(target, mbean));
+    }
+
+    @FunctionalInterface
+    interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+
+    private <T> Uni<T> shared(String method, String mbean, List<?> args, BlockingCall<T> call) {
+        return coalescer.share(target, method, mbean, args, false, () -> offload(method, mbean, call));
+    }
+
+    private boolean isReadOnly(String mbean, List<String> attrs) {
+        return coalescer.isCaching() && service.isReadOnly(mbean, attrs);
+    }
+
+    private <T> Uni<T> offload(String method, String mbean, BlockingCall<T> call) {
+        return Uni.createFrom().<T>emitter(emitter -> {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = call.call();
+            } catch (Exception e) {
+                metrics.recordCall(method, target, mbean, System.nanoTime() - start, e);
+                emitter.fail(e);
+                return;
+            }
+            metrics.recordCall(method, target, mbean, System.nanoTime() - start, null);
+            emitter.complete(result);
+        }).runSubscriptionOn(executor);
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples numeric attributes of MBeans periodically in the background, so that a time series can be
+ * summarised with a single tool call instead of reading an attribute in a loop.
+ * <p>
+ * A single scheduler thread triggers the samplings and the reads themselves run on the
+ * {@link JolokiaMcpExecutor}. If a read is still in progress when the next one is due, the sample is
+ * skipped rather than queued.
+ * <p>
+ * Samplings that clients don't stop would keep polling their targets and use up the sessions, so a
+ * sampling that hasn't been read for {@code jolokia.mcp.sampling.idle-timeout}, or that has run for
+ * {@code jolokia.mcp.sampling.max-duration}, is stopped.
+ */
+@ApplicationScoped
+public class AttributeSampler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AttributeSampler.class);
+
+    /**
+     * Interval in milliseconds of the checks for expired samplings.
+     */
+    static final long EXPIRY_CHECK_INTERVAL = 10_000;
+
+    @Inject
+    JolokiaMcpExecutor executor;
+
+    @ConfigProperty(name = "jolokia.mcp.sampling.capacity", defaultValue = "600")
+    int capacity;
+
+    @ConfigProperty(name = "jolokia.mcp.sampling.max-sessions", defaultValue = "16")
+    int maxSessions;
+
+    @ConfigProperty(name = "jolokia.mcp.sampling.min-interval", defaultValue = "100")
+    long minInterval;
+
+    /**
+     * Time in milliseconds after which a sampling that hasn't been read is stopped; {@code 0} disables it.
+     */
+    @ConfigProperty(name = "jolokia.mcp.sampling.idle-timeout", defaultValue = "600000")
+    long idleTimeout;
+
+    /**
+     * Time in milliseconds after which a sampling is stopped anyway; {@code 0} disables it.
+     */
+    @ConfigProperty(name = "jolokia.mcp.sampling.max-duration", defaultValue = "3600000")
+    long maxDuration;
+
+    private final Map<String, Sampling> samplings = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Scheduler of the samplings, created by {@link #init()} unless already set, e.g. by tests
+     */
+    ScheduledExecutorService scheduler;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    @PostConstruct
+    void init() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jolokia-mcp-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduler.scheduleWithFixedDelay(this::expire, EXPIRY_CHECK_INTERVAL, EXPIRY_CHECK_INTERVAL,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts sampling the given attributes of an MBean.
+     *
+     * @return ID of the sampling
+     */
+    public String start(String target, JolokiaService service, String mbean, List<String> attributes,
+                        long interval) {
+        if (attributes == null || attributes.isEmpty()) {
+            throw new IllegalArgumentException("No attributes to sample");
+        }
+        if (interval < minInterval) {
+            throw new IllegalArgumentException("Interval must be at least %d ms: %d".formatted(minInterval, interval));
+        }
+        synchronized (samplings) {
+            expire();
+            if (samplings.size() >= maxSessions) {
+                throw new IllegalStateException(
+                    "Too many active samplings (max %d); stop one of them first".formatted(maxSessions));
+            }
+            Sampling sampling = new Sampling("sampling-" + lastId.incrementAndGet(), target, service, mbean,
+                attributes, interval, capacity, clock.getAsLong());
+            samplings.put(sampling.id, sampling);
+            sampling.future = scheduler.scheduleAtFixedRate(() -> trigger(sampling), 0, interval,
+                TimeUnit.MILLISECONDS);
+            LOG.debug("Started {} on {}: {}", sampling.id, mbean, attributes);
+            return sampling.id;
+        }
+    }
+
+    private void trigger(Sampling sampling) {
+        if (!sampling.polling.compareAndSet(false, true)) {
+            sampling.skipped.incrementAndGet();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    sampling.sample(clock.getAsLong());
+                } finally {
+                    sampling.polling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated, so skip the sample rather than adding to the load
+            sampling.polling.set(false);
+            sampling.skipped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Summarises the samples of a sampling, with the series downsampled to at most the given number
+     * of points per attribute.
+     */
+    public JSONObject get(String id, int points) {
+        Sampling sampling = find(id);
+        sampling.lastRead = clock.getAsLong();
+        return sampling.summarize(points);
+    }
+
+    /**
+     * Stops a sampling and returns the final summary of its samples.
+     */
+    public JSONObject stop(String id, int points) {
+        Sampling sampling = find(id);
+        sampling.future.cancel(false);
+        samplings.remove(id);
+        LOG.debug("Stopped {}", id);
+        return sampling.summarize(points);
+    }
+
+    /**
+     * Stops the samplings that haven't been read for the idle timeout or have run for the maximum duration.
+     */
+    void expire() {
+        long now = clock.getAsLong();
+        // Synchronized with start(), which publishes the future after adding the sampling
+        synchronized (samplings) {
+            for (Sampling sampling : samplings.values()) {
+                String reason = null;
+                if (idleTimeout > 0 && now - sampling.lastRead >= idleTimeout) {
+                    reason = "not being read for %d ms".formatted(now - sampling.lastRead);
+                } else if (maxDuration > 0 && now - sampling.started >= maxDuration) {
+                    reason = "running for %d ms".formatted(now - sampling.started);
+                }
+                if (reason != null && samplings.remove(sampling.id, sampling)) {
+                    sampling.future.cancel(false);
+                    LOG.info("Stopped {} on {} after {}", sampling.id, sampling.mbean, reason);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return samplings.size();
+    }
+
+    private Sampling find(String id) {
+        Sampling sampling = samplings.get(id);
+        if (sampling == null) {
+            throw new IllegalArgumentException("No such sampling: " + id);
+        }
+        return sampling;
+    }
+
+    private static class Sampling {
+
+        private final String id;
+        private final String target;
+        private final JolokiaService service;
+        private final String mbean;
+        private final List<MBeanAttribute> attributes;
+        private final long interval;
+        private final long started;
+        private volatile long lastRead;
+        private final Map<String, SampleBuffer> buffers = new LinkedHashMap<>();
+        private final Map<String, String> errors = new ConcurrentHashMap<>();
+        private final AtomicBoolean polling = new AtomicBoolean();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile ScheduledFuture<?> future;
+
+        Sampling(String id, String target, JolokiaService service, String mbean, List<String> attributes,
+                 long interval, int capacity, long started) {
+            this.id = id;
+            this.target = target;
+            this.service = service;
+            this.mbean = mbean;
+            this.attributes = attributes.stream().map(attr -> new MBeanAttribute(mbean, attr)).toList();
+            this.interval = interval;
+            this.started = started;
+            this.lastRead = started;
+            attributes.forEach(attr -> buffers.put(attr, new SampleBuffer(capacity)));
+        }
+
+        void sample(long timestamp) {
+            JSONArray results;
+            try {
+                results = service.readAttributes(attributes);
+            } catch (Exception e) {
+                LOG.debug("{}: {}", id, e.getMessage(), e);
+                buffers.keySet().forEach(attr -> errors.put(attr, String.valueOf(e.getMessage())));
+                return;
+            }
+            for (Object result : results) {
+                JSONObject entry = (JSONObject) result;
+                String attr = (String) entry.get("attribute");
+                SampleBuffer buffer = buffers.get(attr);
+                if (buffer == null) {
+                    continue;
+                }
+                Object value = entry.get("value");
+                if (value instanceof Number number) {
+                    buffer.add(timestamp, number.doubleValue());
+                    errors.remove(attr);
+                } else if (value instanceof Boolean bool) {
+                    buffer.add(timestamp, bool ? 1 : 0);
+                    errors.remove(attr);
+                } else if (entry.containsKey("error")) {
+                    errors.put(attr, String.valueOf(entry.get("error")));
+                } else {
+                    errors.put(attr, "Not a numeric value: " + value);
+                }
+            }
+        }
+
+        JSONObject summarize(int points) {
+            JSONObject summary = new JSONObject();
+            summary.put("id", id);
+            summary.put("target", target);
+            summary.put("mbean", mbean);
+            summary.put("interval", interval);
+            summary.put("started", started);
+            JSONObject series = new JSONObject();
+            buffers.forEach((attr, buffer) -> series.put(attr, buffer.summarize(points)));
+            summary.put("attributes", series);
+            if (!errors.isEmpty()) {
+                JSONObject errorsByAttribute = new JSONObject();
+                errorsByAttribute.putAll(errors);
+                summary.put("errors", errorsByAttribute);
+            }
+            if (skipped.get() > 0) {
+                summary.put("skipped", skipped.get());
+            }
+            return summary;
+        }
+    }
+}
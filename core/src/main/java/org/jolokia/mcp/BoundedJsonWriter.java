@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.lang.reflect.Array;
+import java.util.Map;
+
+/**
+ * Writes Jolokia values (JSON objects and arrays, maps, collections, arrays and scalars) as JSON text,
+ * stopping as soon as the output reaches a byte limit. Unlike {@code toJSONString()}, huge values are
+ * never serialised in full: the traversal ends at the limit and a truncation marker is appended, so
+ * the memory needed for a tool response is bounded by the limit rather than by the size of the value.
+ * {@link TableWriter} writes the {@link OutputFormat#TABLE} format within the same kind of limit.
+ */
+public final class BoundedJsonWriter {
+
+    static final String TRUNCATION_MARKER = "... [truncated: response exceeds %d bytes]";
+
+    private final StringBuilder out;
+    private final long maxBytes;
+    private long bytes;
+    private boolean truncated;
+
+    BoundedJsonWriter(long maxBytes) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        this.out = new StringBuilder((int) Math.min(this.maxBytes, 1024));
+    }
+
+    /**
+     * Writes the value as JSON.
+     *
+     * @param maxBytes maximum number of UTF-8 bytes to write before truncating, or {@code 0} for no limit
+     */
+    public static String toJson(Object value, long maxBytes) {
+        BoundedJsonWriter writer = new BoundedJsonWriter(maxBytes);
+        writer.write(value);
+        return writer.finish();
+    }
+
+    /**
+     * Same as {@link #toJson(Object, long)} except that a string value is written as is instead of as
+     * a quoted JSON string.
+     */
+    public static String toText(Object value, long maxBytes) {
+        BoundedJsonWriter writer = new BoundedJsonWriter(maxBytes);
+        if (value instanceof CharSequence text) {
+            writer.appendChars(text, false);
+        } else {
+            writer.write(value);
+        }
+        return writer.finish();
+    }
+
+    String finish() {
+        if (truncated) {
+            if (!out.isEmpty() && Character.isHighSurrogate(out.charAt(out.length() - 1))) {
+                out.setLength(out.length() - 1);
+            }
+            out.append(TRUNCATION_MARKER.formatted(maxBytes));
+        }
+        return out.toString();
+    }
+
+    void write(Object value) {
+        if (truncated) {
+            return;
+        }
+        if (value == null) {
+            append("null");
+        } else if (value instanceof CharSequence text) {
+            writeString(text);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            append(Double.isFinite(number) ? value.toString() : "null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            append(value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(map);
+        } else if (value instanceof Iterable<?> iterable) {
+            append("[");
+            boolean first = true;
+            for (Object element : iterable) {
+                if (truncated) {
+                    return;
+                }
+                if (!first) {
+                    append(",");
+                }
+                first = false;
+                write(element);
+            }
+            append("]");
+        } else if (value.getClass().isArray()) {
+            append("[");
+            int length = Array.getLength(value);
+            for (int i = 0; i < length && !truncated; i++) {
+                if (i > 0) {
+                    append(",");
+                }
+                write(Array.get(value, i));
+            }
+            append("]");
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        append("{");
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (truncated) {
+                return;
+            }
+            if (!first) {
+                append(",");
+            }
+            first = false;
+            writeString(String.valueOf(entry.getKey()));
+            append(":");
+            write(entry.getValue());
+        }
+        append("}");
+    }
+
+    private void writeString(CharSequence text) {
+        append("\"");
+        appendChars(text, true);
+        append("\"");
+    }
+
+    void appendChars(CharSequence text, boolean escape) {
+        for (int i = 0; i < text.length() && !truncated; i++) {
+            char c = text.charAt(i);
+            if (!escape) {
+                append(c);
+                continue;
+            }
+            switch (c) {
+            case '"' -> append("\\\"");
+            case '\\' -> append("\\\\");
+            case '\n' -> append("\\n");
+            case '\r' -> append("\\r");
+            case '\t' -> append("\\t");
+            case '\b' -> append("\\b");
+            case '\f' -> append("\\f");
+            default -> {
+                if (c < 0x20) {
+                    append("\\u%04x".formatted((int) c));
+                } else {
+                    append(c);
+                }
+            }
+            }
+        }
+    }
+
+    void append(String text) {
+        for (int i = 0; i < text.length() && !truncated; i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    void append(char c) {
+        if (truncated) {
+            return;
+        }
+        // UTF-8 length; a surrogate pair is counted as 2 + 2 bytes
+        int length = c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        if (bytes + length > maxBytes) {
+            truncated = true;
+            return;
+        }
+        bytes += length;
+        out.append(c);
+    }
+}
@@ -21,6 +21,7 @@ import java.util.Optional;
 import jakarta.enterprise.context.Dependent;
 
 import io.quarkus.arc.DefaultBean;
+import org.jolokia.json.JSONArray;
 import org.jolokia.json.JSONObject;
 
 /**
@@ -36,6 +37,16 @@ public class DefaultJolokiaService implements JolokiaService {
         return List.of();
     }
 
+    @Override
+    public List<String> searchMBeans(String pattern) {
+        return List.of();
+    }
+
+    @Override
+    public JSONObject listMBeanChanges(String sinceToken) {
+        return new MBeanIndex().changesSince(sinceToken);
+    }
+
     @Override
     public JSONObject listOperations(String mbean) {
         return new JSONObject();
@@ -51,6 +62,21 @@ public class DefaultJolokiaService implements JolokiaService {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Object> read(String mbean, List<String> attrs, String path) {
+        return Optional.empty();
+    }
+
+    @Override
+    public JSONObject readPattern(String pattern, String attr) {
+        return new JSONObject();
+    }
+
+    @Override
+    public JSONArray readAttributes(List<MBeanAttribute> attributes) {
+        return new JSONArray();
+    }
+
     @Override
     public Optional<Object> write(String mbean, String attr, Object value) {
         return Optional.empty();
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Map;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.quarkus.arc.DefaultBean;
+
+/**
+ * A default implementation of the {@link JolokiaTargets} interface that only has the
+ * {@link JolokiaTargets#DEFAULT} target backed by the {@link JolokiaService}.
+ */
+@DefaultBean
+@ApplicationScoped
+public class DefaultJolokiaTargets implements JolokiaTargets {
+
+    @Inject
+    JolokiaService jolokiaService;
+
+    @Override
+    public Map<String, JolokiaService> resolve(String target) {
+        if (target == null || target.isBlank() || JolokiaTargets.matches(target, DEFAULT)) {
+            return Map.of(DEFAULT, jolokiaService);
+        }
+        return Map.of();
+    }
+}
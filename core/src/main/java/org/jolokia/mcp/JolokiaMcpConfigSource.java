@@ -56,6 +56,13 @@ public class JolokiaMcpConfigSource implements ConfigSource {
         }
     }
 
+    /**
+     * Removes all configuration, e.g. before restarting with new configuration in the same JVM.
+     */
+    public static void clear() {
+        configuration.clear();
+    }
+
     private static void setupSse() {
         boolean sse = Boolean.parseBoolean(configuration.get("sse"));
         if (sse) {
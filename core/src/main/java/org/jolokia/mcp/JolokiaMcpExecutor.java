@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor for the Jolokia calls of the MCP tools, e.g. to fan out a call to many targets concurrently.
+ * <p>
+ * By default, it runs each call on a virtual thread when the JVM supports them (Java 21+), so that
+ * blocking on hundreds of targets doesn't need hundreds of platform threads. Otherwise it falls back
+ * to a cached pool of daemon threads.
+ * <p>
+ * When {@code jolokia.mcp.executor.threads} is set, e.g. when running as an agent inside an
+ * application whose capacity must not be taken over by the MCP clients, it runs the calls on a fixed
+ * number of threads with a bounded queue instead, and rejects calls right away when the queue is full.
+ * It also limits the number of concurrent invocations of each tool configured in
+ * {@code jolokia.mcp.executor.tool-limits}.
+ */
+@ApplicationScoped
+public class JolokiaMcpExecutor implements Executor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JolokiaMcpExecutor.class);
+
+    /**
+     * Number of threads; {@code 0} for a thread per call.
+     */
+    @ConfigProperty(name = "jolokia.mcp.executor.threads", defaultValue = "0")
+    int threads;
+
+    /**
+     * Number of calls that may wait for a thread; only used with a fixed number of threads.
+     */
+    @ConfigProperty(name = "jolokia.mcp.executor.queue-size", defaultValue = "100")
+    int queueSize;
+
+    @ConfigProperty(name = "jolokia.mcp.executor.low-priority", defaultValue = "false")
+    boolean lowPriority;
+
+    /**
+     * Maximum number of concurrent invocations per tool, as {@code <tool>=<limit>} entries.
+     */
+    @ConfigProperty(name = "jolokia.mcp.executor.tool-limits")
+    Optional<List<String>> toolLimits;
+
+    private ExecutorService executor;
+    private ThreadPoolExecutor pool;
+    private final Map<String, Semaphore> toolPermits = new HashMap<>();
+    private final Map<String, LongAdder> toolRejections = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        toolLimits.ifPresent(limits -> limits.forEach(this::parseToolLimit));
+        executor = threads > 0 ? createBoundedExecutor() : createExecutor();
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void parseToolLimit(String entry) {
+        String[] limit = entry.split("=", 2);
+        if (limit.length != 2) {
+            throw new IllegalArgumentException("Invalid tool limit '" + entry + "', expected <tool>=<limit>");
+        }
+        toolPermits.put(limit[0].trim(), new Semaphore(Integer.parseInt(limit[1].trim())));
+    }
+
+    private ExecutorService createExecutor() {
+        if (!lowPriority) {
+            try {
+                ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+                LOG.debug("Using virtual threads for Jolokia calls");
+                return virtual;
+            } catch (ReflectiveOperationException e) {
+                LOG.debug("Virtual threads not available, using platform threads for Jolokia calls");
+            }
+        }
+        // Virtual threads ignore priorities, so low priority calls always need platform threads
+        return Executors.newCachedThreadPool(threadFactory());
+    }
+
+    private ExecutorService createBoundedExecutor() {
+        LOG.debug("Using {} threads and a queue of {} for Jolokia calls", threads, queueSize);
+        BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, threadFactory(),
+            (command, executor) -> {
+                rejected.increment();
+                throw new RejectedExecutionException(
+                    "Jolokia MCP server is busy (%d calls running, %d queued); try again later"
+                        .formatted(executor.getActiveCount(), executor.getQueue().size()));
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "jolokia-mcp-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            if (lowPriority) {
+                thread.setPriority(Thread.MIN_PRIORITY);
+            }
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Acquires a slot for an invocation of the tool without waiting.
+     *
+     * @throws RejectedExecutionException if the tool already runs its maximum number of invocations
+     */
+    public void acquire(String tool) {
+        Semaphore permits = toolPermits.get(tool);
+        if (permits != null && !permits.tryAcquire()) {
+            toolRejections.computeIfAbsent(tool, t -> new LongAdder()).increment();
+            throw new RejectedExecutionException(
+                "Too many concurrent %s calls; try again later".formatted(tool));
+        }
+    }
+
+    /**
+     * Releases the slot acquired with {@link #acquire(String)}.
+     */
+    public void release(String tool) {
+        Semaphore permits = toolPermits.get(tool);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /**
+     * Number of calls waiting for a thread.
+     */
+    public int getQueueSize() {
+        return pool == null ? 0 : pool.getQueue().size();
+    }
+
+    /**
+     * Number of calls running on the fixed threads, or {@code 0} without a fixed number of threads.
+     */
+    public int getActiveCount() {
+        return pool == null ? 0 : pool.getActiveCount();
+    }
+
+    /**
+     * Number of calls rejected because all threads were busy and the queue was full.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Number of invocations of the tool rejected because of its concurrency limit.
+     */
+    public long getRejected(String tool) {
+        LongAdder rejections = toolRejections.get(tool);
+        return rejections == null ? 0 : rejections.sum();
+    }
+
+    /**
+     * Tools with a concurrency limit.
+     */
+    public Set<String> getLimitedTools() {
+        return toolPermits.keySet();
+    }
+}
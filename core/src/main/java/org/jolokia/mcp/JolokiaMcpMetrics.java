@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.quarkiverse.mcp.server.Content;
+import io.quarkiverse.mcp.server.TextContent;
+import io.quarkiverse.mcp.server.ToolResponse;
+
+/**
+ * Micrometer metrics of the MCP tool invocations, the Jolokia calls behind them and the caches of
+ * each target.
+ * <p>
+ * Meters are tagged by {@code tool} or {@code method} and {@code target}, plus {@code outcome}
+ * ({@code success} or {@code error}) for the latencies and {@code domain} (the domain of the MBean
+ * the call is about) for the errors.
+ * <p>
+ * The tag values come from the clients, so their number is bounded: a {@code target} that isn't the
+ * name of a target the calls were made to, e.g. a glob or an unknown name, is tagged as
+ * {@code unknown}, and only the first {@value #MAX_DOMAINS} domains of valid MBean names are tagged
+ * as such, any other as {@code other}.
+ */
+@ApplicationScoped
+public class JolokiaMcpMetrics {
+
+    public static final String TOOL_CALLS = "jolokia.mcp.tool.calls";
+    public static final String TOOL_ERRORS = "jolokia.mcp.tool.errors";
+    public static final String TOOL_RESPONSE_SIZE = "jolokia.mcp.tool.response.size";
+    public static final String JOLOKIA_CALLS = "jolokia.mcp.jolokia.calls";
+    public static final String JOLOKIA_ERRORS = "jolokia.mcp.jolokia.errors";
+    public static final String CACHE_HITS = "jolokia.mcp.cache.hits";
+    public static final String CACHE_MISSES = "jolokia.mcp.cache.misses";
+    public static final String CACHE_HIT_RATIO = "jolokia.mcp.cache.hit.ratio";
+    public static final String EXECUTOR_ACTIVE = "jolokia.mcp.executor.active";
+    public static final String EXECUTOR_QUEUED = "jolokia.mcp.executor.queued";
+    public static final String EXECUTOR_REJECTED = "jolokia.mcp.executor.rejected";
+    public static final String READ_SHARED = "jolokia.mcp.read.shared";
+
+    static final String NO_DOMAIN = "none";
+    static final String OTHER_DOMAIN = "other";
+    static final String UNKNOWN_TARGET = "unknown";
+    static final int MAX_DOMAINS = 100;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Set<String> boundTargets = ConcurrentHashMap.newKeySet();
+    private final Set<String> domains = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean executorBound = new AtomicBoolean();
+    private final AtomicBoolean coalescerBound = new AtomicBoolean();
+
+    public JolokiaMcpMetrics() {
+    }
+
+    public JolokiaMcpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Metrics that aren't recorded anywhere, for using the MCP server outside of CDI.
+     */
+    public static JolokiaMcpMetrics noop() {
+        return new JolokiaMcpMetrics(new CompositeMeterRegistry());
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordTool(String tool, String target, String mbean, ToolResponse response, long nanos) {
+        Tags tags = Tags.of("tool", tool, "target", targetTag(target));
+        String outcome = response.isError() ? "error" : "success";
+        Timer.builder(TOOL_CALLS)
+            .description("Latency of the MCP tool invocations")
+            .tags(tags.and("outcome", outcome))
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (response.isError()) {
+            Counter.builder(TOOL_ERRORS)
+                .description("Failed MCP tool invocations")
+                .tags(tags.and("domain", domainTag(mbean)))
+                .register(registry)
+                .increment();
+        }
+        long size = 0;
+        for (Content content : response.content()) {
+            if (content instanceof TextContent text) {
+                size += text.text().length();
+            }
+        }
+        DistributionSummary.builder(TOOL_RESPONSE_SIZE)
+            .description("Size of the MCP tool responses in characters")
+            .baseUnit("characters")
+            .tags(tags)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(size);
+    }
+
+    public void recordCall(String method, String target, String mbean, long nanos, Throwable error) {
+        Tags tags = Tags.of("method", method, "target", targetTag(target));
+        Timer.builder(JOLOKIA_CALLS)
+            .description("Latency of the JolokiaService calls")
+            .tags(tags.and("outcome", error == null ? "success" : "error"))
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            Counter.builder(JOLOKIA_ERRORS)
+                .description("Failed JolokiaService calls")
+                .tags(tags.and("domain", domainTag(mbean), "exception", error.getClass().getSimpleName()))
+                .register(registry)
+                .increment();
+        }
+    }
+
+    /**
+     * Binds the cache metrics of the service of a target, once per target, and makes its name a valid
+     * {@code target} tag.
+     *
+     * @param target name of a resolved target
+     */
+    public void bindTarget(String target, JolokiaService service) {
+        if (boundTargets.add(target)) {
+            service.bindMetrics(registry, Tags.of("target", target));
+        }
+    }
+
+    /**
+     * Binds the queue and rejection metrics of the executor, once.
+     */
+    public void bindExecutor(JolokiaMcpExecutor executor) {
+        if (!executorBound.compareAndSet(false, true)) {
+            return;
+        }
+        Gauge.builder(EXECUTOR_ACTIVE, executor, JolokiaMcpExecutor::getActiveCount)
+            .description("Jolokia calls running on the fixed executor threads")
+            .register(registry);
+        Gauge.builder(EXECUTOR_QUEUED, executor, JolokiaMcpExecutor::getQueueSize)
+            .description("Jolokia calls waiting for an executor thread")
+            .register(registry);
+        FunctionCounter.builder(EXECUTOR_REJECTED, executor, JolokiaMcpExecutor::getRejected)
+            .description("Calls rejected because the executor or the concurrency limit of the tool was saturated")
+            .tags("reason", "queue-full", "tool", "all")
+            .register(registry);
+        for (String tool : executor.getLimitedTools()) {
+            FunctionCounter.builder(EXECUTOR_REJECTED, executor, e -> e.getRejected(tool))
+                .description("Calls rejected because the executor or the concurrency limit of the tool was saturated")
+                .tags("reason", "tool-limit", "tool", tool)
+                .register(registry);
+        }
+    }
+
+    /**
+     * Binds the counters of the calls that shared the result of another call, once.
+     */
+    public void bindCoalescer(ReadCoalescer coalescer) {
+        if (!coalescerBound.compareAndSet(false, true)) {
+            return;
+        }
+        FunctionCounter.builder(READ_SHARED, coalescer, ReadCoalescer::getCoalesced)
+            .description("Read-only calls that shared the result of an identical call instead of calling the target")
+            .tags("source", "in-flight")
+            .register(registry);
+        FunctionCounter.builder(READ_SHARED, coalescer, ReadCoalescer::getCacheHits)
+            .description("Read-only calls that shared the result of an identical call instead of calling the target")
+            .tags("source", "cache")
+            .register(registry);
+    }
+
+    /**
+     * Registers hit and miss counters, and the hit ratio, of a cache owned by the given object. The
+     * meters only hold a weak reference to the owner.
+     */
+    public static <T> void bindCache(MeterRegistry registry, Tags tags, String cache, T owner,
+                                     ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        Tags cacheTags = tags.and("cache", cache);
+        FunctionCounter.builder(CACHE_HITS, owner, o -> hits.applyAsLong(o))
+            .tags(cacheTags)
+            .register(registry);
+        FunctionCounter.builder(CACHE_MISSES, owner, o -> misses.applyAsLong(o))
+            .tags(cacheTags)
+            .register(registry);
+        Gauge.builder(CACHE_HIT_RATIO, owner, o -> {
+                long hit = hits.applyAsLong(o);
+                long total = hit + misses.applyAsLong(o);
+                return total == 0 ? 0 : (double) hit / total;
+            })
+            .tags(cacheTags)
+            .register(registry);
+    }
+
+    String targetTag(String target) {
+        if (target == null || target.isBlank()) {
+            return JolokiaTargets.DEFAULT;
+        }
+        return boundTargets.contains(target) ? target : UNKNOWN_TARGET;
+    }
+
+    String domainTag(String mbean) {
+        String domain = domain(mbean);
+        if (NO_DOMAIN.equals(domain) || domains.contains(domain)) {
+            return domain;
+        }
+        if (domains.size() >= MAX_DOMAINS) {
+            return OTHER_DOMAIN;
+        }
+        domains.add(domain);
+        return domain;
+    }
+
+    /**
+     * Domain of the MBean name, or {@code none} if it isn't a valid name or its domain is a pattern.
+     */
+    static String domain(String mbean) {
+        if (mbean == null) {
+            return NO_DOMAIN;
+        }
+        try {
+            ObjectName name = new ObjectName(mbean);
+            return name.isDomainPattern() ? NO_DOMAIN : name.getDomain();
+        } catch (MalformedObjectNameException e) {
+            return NO_DOMAIN;
+        }
+    }
+}
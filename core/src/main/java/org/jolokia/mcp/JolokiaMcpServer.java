@@ -16,8 +16,18 @@
  */
 package org.jolokia.mcp;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
@@ -25,6 +35,9 @@ import io.quarkiverse.mcp.server.TextContent;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
 import io.quarkiverse.mcp.server.ToolResponse;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jolokia.json.JSONArray;
 import org.jolokia.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,85 +47,391 @@ public class JolokiaMcpServer {
 
     private static final Logger LOG = LoggerFactory.getLogger(JolokiaMcpServer.class);
 
+    private static final String TARGET_DESCRIPTION = "Target name, or glob pattern (e.g. broker-*) to run on all"
+        + " matching targets concurrently (default: the default target)";
+
+    private static final int DEFAULT_SAMPLING_INTERVAL = 1000;
+    private static final int DEFAULT_SAMPLING_POINTS = 20;
+
+    @Inject
+    JolokiaTargets targets;
+
+    @Inject
+    JolokiaMcpExecutor executor;
+
     @Inject
-    JolokiaService jolokiaService;
+    AttributeSampler sampler;
+
+    @Inject
+    JolokiaMcpMetrics metrics;
+
+    @Inject
+    ReadCoalescer coalescer;
+
+    @ConfigProperty(name = "jolokia.mcp.target-timeout", defaultValue = "30000")
+    long targetTimeout;
+
+    @ConfigProperty(name = "jolokia.mcp.max-response-size", defaultValue = "1048576")
+    long maxResponseSize;
+
+    @ConfigProperty(name = "jolokia.mcp.output-format", defaultValue = "json")
+    OutputFormat outputFormat;
 
     public JolokiaMcpServer() {
         LOG.info("Start Jolokia MCP Server");
     }
 
-    @Tool(description = "List available MBeans from the JVM")
-    ToolResponse listMBeans() {
-        try {
-            List<String> mbeans = jolokiaService.listMBeans();
-            return ToolResponse.success(mbeans.stream().map(TextContent::new).toList());
-        } catch (Exception e) {
-            LOG.error("listMBeans: " + e.getMessage(), e);
-            return ToolResponse.error(e.getMessage());
+    @Tool(description = "List available MBeans from the JVM. Optionally filter them by an ObjectName pattern"
+        + " or a domain, and paginate the result with offset and limit")
+    Uni<ToolResponse> listMBeans(
+        @ToolArg(description = "JMX ObjectName pattern to filter MBeans (e.g. java.lang:type=*)", required = false)
+        String pattern,
+        @ToolArg(description = "Domain to filter MBeans (ignored when pattern is given)", required = false)
+        String domain,
+        @ToolArg(description = "Index of the first MBean to return (default: 0)", required = false)
+        Integer offset,
+        @ToolArg(description = "Maximum number of MBeans to return (default: all)", required = false)
+        Integer limit,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false)
+        String target) {
+        return call("listMBeans", target,
+            pattern != null && !pattern.isBlank() ? pattern : domain == null ? null : domain + ":*",
+            service -> {
+                if (pattern != null && !pattern.isBlank()) {
+                    return service.searchMBeans(pattern).map(mbeans -> mbeans.stream().sorted().toList());
+                } else if (domain != null && !domain.isBlank()) {
+                    return service.searchMBeans(domain + ":*").map(mbeans -> mbeans.stream().sorted().toList());
+                }
+                return service.listMBeans();
+            },
+            mbeans -> outputFormat == OutputFormat.TABLE
+                // A single text block instead of a content per MBean
+                ? ToolResponse.success(toJson(paginate(mbeans, offset, limit).stream().map(TextContent::text).toList()))
+                : ToolResponse.success(paginate(mbeans, offset, limit)),
+            mbeans -> {
+                JSONArray page = new JSONArray();
+                paginate(mbeans, offset, limit).forEach(content -> page.add(content.text()));
+                return page;
+            });
+    }
+
+    static List<TextContent> paginate(List<String> mbeans, Integer offset, Integer limit) {
+        int from = Math.min(Math.max(offset == null ? 0 : offset, 0), mbeans.size());
+        int to = limit == null || limit < 0 ? mbeans.size() : Math.min(from + limit, mbeans.size());
+        List<TextContent> contents = new ArrayList<>(to - from + 1);
+        mbeans.subList(from, to).forEach(mbean -> contents.add(new TextContent(mbean)));
+        if (to < mbeans.size()) {
+            contents.add(new TextContent("(%d more of %d MBeans; use offset=%d to list the next ones)"
+                .formatted(mbeans.size() - to, mbeans.size(), to)));
         }
+        return contents;
+    }
+
+    @Tool(description = "List the MBeans registered and unregistered since a previous call, to watch for changes"
+        + " without listing all MBeans again. Returns the added and removed MBean names and a token for the next call;"
+        + " without a token, or with an expired one, all MBeans are returned as added and full is true")
+    Uni<ToolResponse> listMBeanChanges(
+        @ToolArg(description = "Token returned by the previous call", required = false)
+        String sinceToken,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false)
+        String target) {
+        return call("listMBeanChanges", target, null,
+            service -> service.listMBeanChanges(sinceToken),
+            changes -> ToolResponse.success(toJson(changes)));
     }
 
     @Tool(description = "List available operations for a given MBean")
-    ToolResponse listMBeanOperations(@ToolArg(description = "MBean name") String mbean) {
-        try {
-            JSONObject ops = jolokiaService.listOperations(mbean);
-            return ToolResponse.success(ops.toJSONString());
-        } catch (Exception e) {
-            LOG.error("listMBeanOperations: " + e.getMessage(), e);
-            return ToolResponse.error(e.getMessage());
-        }
+    Uni<ToolResponse> listMBeanOperations(
+        @ToolArg(description = "MBean name") String mbean,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        return call("listMBeanOperations", target, mbean,
+            service -> service.listOperations(mbean),
+            ops -> ToolResponse.success(toJson(ops)));
     }
 
     @Tool(description = "List available attributes for a given MBean")
-    ToolResponse listMBeanAttributes(@ToolArg(description = "MBean name") String mbean) {
-        try {
-            JSONObject attrs = jolokiaService.listAttributes(mbean);
-            return ToolResponse.success(attrs.toJSONString());
-        } catch (Exception e) {
-            LOG.error("listMBeanAttributes: " + e.getMessage(), e);
-            return ToolResponse.error(e.getMessage());
-        }
+    Uni<ToolResponse> listMBeanAttributes(
+        @ToolArg(description = "MBean name") String mbean,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        return call("listMBeanAttributes", target, mbean,
+            service -> service.listAttributes(mbean),
+            attrs -> ToolResponse.success(toJson(attrs)));
     }
 
-    @Tool(description = "Read an attribute from a given MBean")
-    ToolResponse readMBeanAttribute(
+    @Tool(description = "Read an attribute from a given MBean. Optionally read only a part of the value"
+        + " with an inner path, or several attributes at once")
+    Uni<ToolResponse> readMBeanAttribute(
         @ToolArg(description = "MBean name") String mbean,
-        @ToolArg(description = "Attribute name") String attribute) {
-        try {
-            Optional<Object> response = jolokiaService.read(mbean, attribute);
-            return ToolResponse.success(response.orElse("null").toString());
-        } catch (Exception e) {
-            LOG.error("readMBeanAttribute: " + e.getMessage(), e);
-            return ToolResponse.error(e.getMessage());
+        @ToolArg(description = "Attribute name, or comma-separated attribute names to read at once") String attribute,
+        @ToolArg(description = "Inner path into the value, with elements separated by / (e.g. used for"
+            + " HeapMemoryUsage, or */used to apply it to all elements)", required = false)
+        String path,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        List<String> attrs = attribute == null ? List.of() : Arrays.stream(attribute.split(","))
+            .map(String::trim)
+            .filter(attr -> !attr.isEmpty())
+            .toList();
+        if (attrs.isEmpty()) {
+            return Uni.createFrom().item(ToolResponse.error("No attribute given: " + attribute));
+        }
+        return call("readMBeanAttribute", target, mbean,
+            service -> attrs.size() == 1 && (path == null || path.isEmpty())
+                ? service.read(mbean, attrs.get(0))
+                : service.read(mbean, attrs, path),
+            response -> ToolResponse.success(toText(response.orElse(null))));
+    }
+
+    @Tool(description = "Read an attribute from all MBeans matching an ObjectName pattern in a single request."
+        + " Optionally return only the top N MBeans by the attribute value")
+    Uni<ToolResponse> readMBeanAttributeByPattern(
+        @ToolArg(description = "JMX ObjectName pattern (e.g. java.lang:type=GarbageCollector,*)") String pattern,
+        @ToolArg(description = "Attribute name") String attribute,
+        @ToolArg(description = "Number of MBeans with the highest numeric values to return (default: all)",
+            required = false)
+        Integer top,
+        @ToolArg(description = "Return the lowest values instead of the highest ones with top (default: false)",
+            required = false)
+        Boolean ascending,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        return call("readMBeanAttributeByPattern", target, pattern,
+            service -> service.readPattern(pattern, attribute)
+                .map(values -> top == null ? values : topN(values, top, Boolean.TRUE.equals(ascending))),
+            values -> ToolResponse.success(toJson(values)));
+    }
+
+    /**
+     * Selects the entries with the N highest (or lowest) numeric values, in order. Entries with
+     * non-numeric values are left out.
+     */
+    static JSONObject topN(Map<String, Object> values, int n, boolean ascending) {
+        Comparator<Map.Entry<String, Double>> order = Map.Entry.comparingByValue();
+        if (!ascending) {
+            order = order.reversed();
         }
+        // Keep the best N entries in a heap whose head is the worst of them
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(Math.max(1, n), order.reversed());
+        values.forEach((mbean, value) -> {
+            if (n <= 0 || !(value instanceof Number number)) {
+                return;
+            }
+            heap.add(Map.entry(mbean, number.doubleValue()));
+            if (heap.size() > n) {
+                heap.poll();
+            }
+        });
+        List<Map.Entry<String, Double>> selected = new ArrayList<>(heap);
+        selected.sort(order);
+        JSONObject result = new JSONObject();
+        selected.forEach(entry -> result.put(entry.getKey(), values.get(entry.getKey())));
+        return result;
+    }
+
+    @Tool(description = "Read multiple attributes from given MBeans in a single request")
+    Uni<ToolResponse> readMBeanAttributes(
+        @ToolArg(description = "List of pairs of MBean name (mbean) and attribute name (attribute)")
+        List<MBeanAttribute> attributes,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        return call("readMBeanAttributes", target, null,
+            service -> service.readAttributes(attributes),
+            response -> ToolResponse.success(toJson(response)));
     }
 
     @Tool(description = "Set the value to an attribute of a given MBean")
-    ToolResponse writeMBeanAttribute(
+    Uni<ToolResponse> writeMBeanAttribute(
         @ToolArg(description = "MBean name") String mbean,
         @ToolArg(description = "Attribute name") String attribute,
-        @ToolArg(description = "Attribute value") Object value) {
-        try {
-            Optional<Object> response = jolokiaService.write(mbean, attribute, value);
-            return ToolResponse.success(response.orElse("null").toString());
-        } catch (Exception e) {
-            LOG.error("writeMBeanAttribute: " + e.getMessage(), e);
-            return ToolResponse.error(e.getMessage());
-        }
+        @ToolArg(description = "Attribute value") Object value,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target) {
+        return call("writeMBeanAttribute", target, mbean,
+            service -> service.write(mbean, attribute, value),
+            response -> ToolResponse.success(toText(response.orElse(null))));
     }
 
     @Tool(description = "Execute an operation on a given MBean")
-    ToolResponse executeMBeanOperation(
+    Uni<ToolResponse> executeMBeanOperation(
         @ToolArg(description = "MBean name") String mbean,
         @ToolArg(description = "Operation name") String operation,
+        @ToolArg(description = TARGET_DESCRIPTION, required = false) String target,
         @ToolArg(description = "Arguments") Object... args) {
+        return call("executeMBeanOperation", target, mbean,
+            service -> service.exec(mbean, operation, args),
+            response -> ToolResponse.success(toText(response.orElse(null))));
+    }
+
+    @Tool(description = "Start sampling numeric attributes of a given MBean periodically in the background."
+        + " Returns the ID of the sampling to pass to getSamples and stopSampling. A sampling that isn't read"
+        + " with getSamples for a while is stopped automatically")
+    ToolResponse startSampling(
+        @ToolArg(description = "MBean name") String mbean,
+        @ToolArg(description = "Names of the numeric attributes to sample") List<String> attributes,
+        @ToolArg(description = "Sampling interval in milliseconds (default: 1000)", required = false)
+        Integer interval,
+        @ToolArg(description = "Target name (default: the default target)", required = false)
+        String target) {
+        return timed("startSampling", target, mbean, () -> {
+            Map<String, JolokiaService> services = targets.resolve(target);
+            if (services.size() != 1) {
+                return ToolResponse.error("Sampling needs exactly one target, but %d match: %s"
+                    .formatted(services.size(), target));
+            }
+            var entry = services.entrySet().iterator().next();
+            metrics.bindTarget(entry.getKey(), entry.getValue());
+            return ToolResponse.success(sampler.start(entry.getKey(), entry.getValue(), mbean, attributes,
+                interval == null ? DEFAULT_SAMPLING_INTERVAL : interval));
+        });
+    }
+
+    @Tool(description = "Get the samples of a sampling started with startSampling, summarised with min/max/avg/rate"
+        + " and downsampled to a number of points per attribute")
+    ToolResponse getSamples(
+        @ToolArg(description = "Sampling ID") String id,
+        @ToolArg(description = "Maximum number of points per attribute (default: 20)", required = false)
+        Integer points) {
+        return timed("getSamples", null, null, () -> ToolResponse.success(
+            toJson(sampler.get(id, points == null ? DEFAULT_SAMPLING_POINTS : points))));
+    }
+
+    @Tool(description = "Stop a sampling started with startSampling and get the final summary of its samples")
+    ToolResponse stopSampling(
+        @ToolArg(description = "Sampling ID") String id,
+        @ToolArg(description = "Maximum number of points per attribute (default: 20)", required = false)
+        Integer points) {
+        return timed("stopSampling", null, null, () -> ToolResponse.success(
+            toJson(sampler.stop(id, points == null ? DEFAULT_SAMPLING_POINTS : points))));
+    }
+
+    /**
+     * Runs a tool that only works locally, i.e. without Jolokia calls, recording its metrics.
+     */
+    private ToolResponse timed(String tool, String target, String mbean, Supplier<ToolResponse> body) {
+        long start = System.nanoTime();
+        metrics.bindExecutor(executor);
+        ToolResponse response;
+        try {
+            executor.acquire(tool);
+            try {
+                response = body.get();
+            } finally {
+                executor.release(tool);
+            }
+        } catch (Exception e) {
+            response = error(tool, e);
+        }
+        metrics.recordTool(tool, target, mbean, response, System.nanoTime() - start);
+        return response;
+    }
+
+    private <T> Uni<ToolResponse> call(String tool, String target, String mbean,
+                                       Function<AsyncJolokiaService, Uni<T>> call,
+                                       Function<T, ToolResponse> single) {
+        return call(tool, target, mbean, call, single, JolokiaMcpServer::toJsonValue);
+    }
+
+    /**
+     * Runs the call on the target without blocking the caller. If the target matches more than one
+     * target, the call is fanned out to all of them concurrently and the results are aggregated into
+     * a JSON object keyed by target name.
+     *
+     * @param mbean MBean name or pattern the call is about, if any, for the metrics
+     */
+    private <T> Uni<ToolResponse> call(String tool, String target, String mbean,
+                                       Function<AsyncJolokiaService, Uni<T>> call,
+                                       Function<T, ToolResponse> single, Function<T, Object> aggregated) {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            metrics.bindExecutor(executor);
+            try {
+                executor.acquire(tool);
+            } catch (RejectedExecutionException e) {
+                ToolResponse response = error(tool, e);
+                metrics.recordTool(tool, target, mbean, response, System.nanoTime() - start);
+                return Uni.createFrom().item(response);
+            }
+            return dispatch(tool, target, call, single, aggregated)
+                .onTermination().invoke(() -> executor.release(tool))
+                .invoke(response -> metrics.recordTool(tool, target, mbean, response, System.nanoTime() - start));
+        });
+    }
+
+    private <T> Uni<ToolResponse> dispatch(String tool, String target, Function<AsyncJolokiaService, Uni<T>> call,
+                                           Function<T, ToolResponse> single, Function<T, Object> aggregated) {
+        Map<String, JolokiaService> services;
         try {
-            Optional<Object> response = jolokiaService.exec(mbean, operation, args);
-            return ToolResponse.success(response.orElse("null").toString());
+            services = targets.resolve(target);
         } catch (Exception e) {
-            LOG.error("executeMBeanOperation: " + e.getMessage(), e);
+            return Uni.createFrom().item(error(tool, e));
+        }
+        if (services.isEmpty()) {
+            return Uni.createFrom().item(ToolResponse.error("No target matches: " + target));
+        }
+        if (services.size() == 1) {
+            var entry = services.entrySet().iterator().next();
+            return call.apply(async(entry.getKey(), entry.getValue()))
+                .map(single)
+                .onFailure().recoverWithItem(e -> error(tool, e));
+        }
+        return fanOut(services, call, aggregated)
+            .map(result -> ToolResponse.success(toJson(result)))
+            .onFailure().recoverWithItem(e -> error(tool, e));
+    }
+
+    private <T> Uni<JSONObject> fanOut(Map<String, JolokiaService> services,
+                                       Function<AsyncJolokiaService, Uni<T>> call,
+                                       Function<T, Object> aggregated) {
+        List<String> names = new ArrayList<>(services.keySet());
+        List<Uni<Object>> results = new ArrayList<>(names.size());
+        services.forEach((name, service) -> results.add(
+            call.apply(async(name, service))
+                .ifNoItem().after(Duration.ofMillis(targetTimeout))
+                .failWith(() -> new TimeoutException("Timed out after %d ms".formatted(targetTimeout)))
+                .map(aggregated)
+                .onFailure().recoverWithItem(e -> {
+                    JSONObject error = new JSONObject();
+                    error.put("error", e.getMessage());
+                    return error;
+                })));
+
+        return Uni.join().all(results).andFailFast().map(values -> {
+            JSONObject result = new JSONObject();
+            for (int i = 0; i < names.size(); i++) {
+                result.put(names.get(i), values.get(i));
+            }
+            return result;
+        });
+    }
+
+    private String toJson(Object value) {
+        return outputFormat == OutputFormat.TABLE
+            ? TableWriter.toTable(value, maxResponseSize)
+            : BoundedJsonWriter.toJson(value, maxResponseSize);
+    }
+
+    private String toText(Object value) {
+        return outputFormat == OutputFormat.TABLE
+            ? TableWriter.toTable(value, maxResponseSize)
+            : BoundedJsonWriter.toText(value, maxResponseSize);
+    }
+
+    private AsyncJolokiaService async(String target, JolokiaService service) {
+        metrics.bindTarget(target, service);
+        metrics.bindCoalescer(coalescer);
+        return new AsyncJolokiaService(service, executor, target, metrics, coalescer);
+    }
+
+    private static ToolResponse error(String tool, Throwable e) {
+        if (e instanceof RejectedExecutionException) {
+            // Expected under load, so no stack trace
+            LOG.warn("{}: {}", tool, e.getMessage());
             return ToolResponse.error(e.getMessage());
         }
+        LOG.error(tool + ": " + e.getMessage(), e);
+        return ToolResponse.error(e.getMessage());
     }
-}
 
+    private static Object toJsonValue(Object value) {
+        if (value instanceof Optional<?> optional) {
+            return optional.orElse(null);
+        }
+        return value;
+    }
+}
@@ -17,22 +17,121 @@
 package org.jolokia.mcp;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.jolokia.json.JSONArray;
 import org.jolokia.json.JSONObject;
 
 public interface JolokiaService {
 
     List<String> listMBeans() throws Exception;
 
+    /**
+     * List MBeans matching the given JMX ObjectName pattern. The pattern is evaluated by the target
+     * so that the full MBean list doesn't need to be transferred.
+     */
+    List<String> searchMBeans(String pattern) throws Exception;
+
+    /**
+     * List the MBeans registered and unregistered since the given token, as a JSON object with the
+     * {@code added} and {@code removed} MBean names and the {@code token} for the next call. Without
+     * a token, or with one that the service can't resolve anymore, all MBeans are returned as
+     * {@code added} with {@code full} set to {@code true} (see {@link MBeanIndex}).
+     */
+    JSONObject listMBeanChanges(String sinceToken) throws Exception;
+
     JSONObject listOperations(String mbean) throws Exception;
 
     JSONObject listAttributes(String mbean) throws Exception;
 
     Optional<Object> read(String mbean, String attr) throws Exception;
 
+    /**
+     * Read only a part of the values of the given attributes, leaving the projection to the target.
+     * With a single attribute, the value at the path is returned. With multiple attributes, a JSON
+     * object of the attribute names to their values at the path is returned.
+     *
+     * @param path Jolokia inner path into the attribute values, e.g. {@code used} of
+     *             {@code HeapMemoryUsage}: map keys and list indices separated by {@code /}, with a
+     *             literal {@code /} escaped as {@code !/} and a literal {@code !} as {@code !!}, and
+     *             {@code *} matching all entries at a level; or {@code null} to read the whole values
+     */
+    Optional<Object> read(String mbean, List<String> attrs, String path) throws Exception;
+
+    /**
+     * Read an attribute from all MBeans matching the given JMX ObjectName pattern with a single
+     * pattern read on the target. MBeans that don't have the attribute are left out.
+     *
+     * @return JSON object of the matching MBean names to their attribute values
+     */
+    JSONObject readPattern(String pattern, String attr) throws Exception;
+
+    /**
+     * Read multiple attributes at once. Each element of the returned array is a JSON object
+     * with {@code mbean} and {@code attribute} keys, plus either {@code value} or {@code error}.
+     */
+    JSONArray readAttributes(List<MBeanAttribute> attributes) throws Exception;
+
+    /**
+     * Flattens the value of a Jolokia pattern read, which is a map of MBean names to maps of
+     * attribute names to values, to a map of MBean names to the values of the given attribute.
+     * For a name that isn't a pattern, Jolokia returns the attribute value itself, which is mapped
+     * to the canonical name of the MBean.
+     */
+    static JSONObject flattenPatternRead(String pattern, Object value, String attr) throws MalformedObjectNameException {
+        JSONObject result = new JSONObject();
+        ObjectName name = new ObjectName(pattern);
+        if (!name.isPattern()) {
+            result.put(name.getCanonicalName(), value);
+        } else if (value instanceof Map<?, ?> mbeans) {
+            new TreeMap<>(mbeans).forEach((mbean, attrs) -> {
+                if (attrs instanceof Map<?, ?> map && map.containsKey(attr)) {
+                    result.put(String.valueOf(mbean), map.get(attr));
+                }
+            });
+        }
+        return result;
+    }
+
     Optional<Object> write(String mbean, String attr, Object value) throws Exception;
 
     Optional<Object> exec(String mbean, String op, Object... args) throws Exception;
+
+    /**
+     * Checks whether the attributes are known to be read-only from the metadata at hand, i.e. without
+     * a call to the target. Attributes without metadata at hand count as writable.
+     */
+    default boolean isReadOnly(String mbean, List<String> attrs) {
+        return false;
+    }
+
+    /**
+     * Checks whether the attributes are read-only ({@code rw} is {@code false}) in the metadata.
+     *
+     * @param mbeanInfo metadata of the MBean, or {@code null} if it isn't at hand
+     */
+    static boolean isReadOnly(JSONObject mbeanInfo, List<String> attrs) {
+        if (mbeanInfo == null || !(mbeanInfo.get("attr") instanceof Map<?, ?> descriptors)) {
+            return false;
+        }
+        for (String attr : attrs) {
+            if (!(descriptors.get(attr) instanceof Map<?, ?> descriptor) || !Boolean.FALSE.equals(descriptor.get("rw"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binds the metrics of the caches of this service, if any, to the registry.
+     */
+    default void bindMetrics(MeterRegistry registry, Tags tags) {
+    }
 }
 
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Named set of Jolokia targets (JVMs) that the MCP tools can be directed to.
+ */
+public interface JolokiaTargets {
+
+    /**
+     * Name of the target that tools use when no target is given.
+     */
+    String DEFAULT = "default";
+
+    /**
+     * Resolves the targets matching the given name or glob pattern ({@code *} and {@code ?}).
+     *
+     * @param target target name or glob pattern, or {@code null} for the default target
+     * @return map of target names to their Jolokia services, empty if no target matches
+     */
+    Map<String, JolokiaService> resolve(String target);
+
+    static boolean matches(String glob, String name) {
+        if (!glob.contains("*") && !glob.contains("?")) {
+            return glob.equals(name);
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String part : glob.split("(?=[*?])|(?<=[*?])")) {
+            switch (part) {
+            case "*" -> regex.append(".*");
+            case "?" -> regex.append('.');
+            default -> regex.append(Pattern.quote(part));
+            }
+        }
+        return name.matches(regex.toString());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+
+/**
+ * Versioned index of the MBean names of a JVM, recording each registration and unregistration, so
+ * that clients polling for changes only get what changed since their last poll.
+ * <p>
+ * A poll is identified by a token, which encodes the index instance and the version the client has
+ * seen. Changes are kept for the last {@value #DEFAULT_MAX_CHANGES} versions; a client with an older
+ * token, or a token of another instance (e.g. from before a restart), gets the full list instead.
+ */
+public class MBeanIndex {
+
+    static final int DEFAULT_MAX_CHANGES = 10_000;
+
+    private record Change(long version, String mbean, boolean added) {
+    }
+
+    private final String instance = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final int maxChanges;
+    private final Set<String> mbeans = new HashSet<>();
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private long version;
+    private boolean initialized;
+
+    public MBeanIndex() {
+        this(DEFAULT_MAX_CHANGES);
+    }
+
+    MBeanIndex(int maxChanges) {
+        this.maxChanges = maxChanges;
+    }
+
+    public synchronized boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Updates the index to the given full list of MBeans, recording the differences as changes.
+     *
+     * @return the MBeans added or removed since the last update, none for the first one
+     */
+    public synchronized List<String> update(Collection<String> current) {
+        List<String> changed = new ArrayList<>();
+        if (!initialized) {
+            mbeans.addAll(current);
+            initialized = true;
+            return changed;
+        }
+        Set<String> currentSet = current instanceof Set<String> set ? set : new HashSet<>(current);
+        for (String mbean : currentSet) {
+            if (!mbeans.contains(mbean)) {
+                added(mbean);
+                changed.add(mbean);
+            }
+        }
+        for (String mbean : mbeans.toArray(String[]::new)) {
+            if (!currentSet.contains(mbean)) {
+                removed(mbean);
+                changed.add(mbean);
+            }
+        }
+        return changed;
+    }
+
+    public synchronized void added(String mbean) {
+        if (initialized && mbeans.add(mbean)) {
+            record(new Change(++version, mbean, true));
+        }
+    }
+
+    public synchronized void removed(String mbean) {
+        if (initialized && mbeans.remove(mbean)) {
+            record(new Change(++version, mbean, false));
+        }
+    }
+
+    private void record(Change change) {
+        changes.addLast(change);
+        if (changes.size() > maxChanges) {
+            changes.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the changes since the given token as a JSON object with the {@code added} and
+     * {@code removed} MBean names and the {@code token} for the next poll. Without a valid token, all
+     * MBeans are returned as {@code added}, with {@code full} set to {@code true}.
+     */
+    public synchronized JSONObject changesSince(String token) {
+        long since = parse(token);
+        JSONObject result = new JSONObject();
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        boolean full = since < 0;
+        if (full) {
+            added.addAll(mbeans);
+        } else {
+            // Only the net effect per MBean is reported, e.g. an MBean registered and unregistered
+            // again since the token isn't. Whether it existed at the token follows from its first change
+            // after it.
+            // Walking back from the newest change, the last one seen per MBean is its first one.
+            Map<String, Boolean> existedBefore = new HashMap<>();
+            Iterator<Change> newestFirst = changes.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Change change = newestFirst.next();
+                if (change.version() <= since) {
+                    break;
+                }
+                existedBefore.put(change.mbean(), !change.added());
+            }
+            existedBefore.forEach((mbean, existed) -> {
+                boolean exists = mbeans.contains(mbean);
+                if (exists && !existed) {
+                    added.add(mbean);
+                } else if (!exists && existed) {
+                    removed.add(mbean);
+                }
+            });
+        }
+        Collections.sort(added);
+        Collections.sort(removed);
+        result.put("added", toJson(added));
+        result.put("removed", toJson(removed));
+        result.put("full", full);
+        result.put("token", instance + ":" + version);
+        return result;
+    }
+
+    private static JSONArray toJson(List<String> mbeans) {
+        JSONArray array = new JSONArray();
+        array.addAll(mbeans);
+        return array;
+    }
+
+    /**
+     * @return the version of the token, or {@code -1} if only the full list can be returned for it
+     */
+    private long parse(String token) {
+        if (token == null || token.isBlank()) {
+            return -1;
+        }
+        int colon = token.lastIndexOf(':');
+        if (colon < 0 || !instance.equals(token.substring(0, colon))) {
+            return -1;
+        }
+        long since;
+        try {
+            since = Long.parseLong(token.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        long oldest = changes.isEmpty() ? version : changes.getFirst().version() - 1;
+        return since > version || since < oldest ? -1 : since;
+    }
+}
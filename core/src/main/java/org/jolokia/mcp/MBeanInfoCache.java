@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.jolokia.json.JSONObject;
+
+/**
+ * Size-limited LRU cache of the metadata (attributes, operations, etc.) of each MBean.
+ * <p>
+ * Entries go stale with the same rules as {@link MBeanListCache}: an expiring cache drops entries
+ * older than the current TTL of the MBean list, while a cache created with
+ * {@link #nonExpiring(int)} relies on the owner to {@link #remove(String)} entries of
+ * unregistered MBeans. Either way, the owner removes the entries of the MBeans that it finds
+ * unregistered or re-registered.
+ * <p>
+ * Entries are keyed by the canonical MBean names, so that an MBean is removed whatever form of its
+ * name it was looked up with.
+ */
+public class MBeanInfoCache {
+
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+        JSONObject load(String mbean) throws E;
+    }
+
+    /**
+     * @param operations index of the operations, built along with the entry so that executing an
+     *                   operation never scans the metadata
+     */
+    private record Entry(JSONObject info, OperationIndex operations, long timestamp) {
+
+        Entry(JSONObject info) {
+            this(info, info != null && info.get("op") instanceof Map<?, ?> ops ? OperationIndex.of(ops) : OperationIndex.EMPTY,
+                System.currentTimeMillis());
+        }
+    }
+
+    private final int maxSize;
+    private final boolean expiring;
+    private final LongSupplier ttl;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Incremented on each removal, so that metadata loaded while an entry was removed isn't cached
+     */
+    private long removals;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public MBeanInfoCache(int maxSize) {
+        this(maxSize, () -> MBeanListCache.CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * @param ttl the current Time-To-Live in milliseconds of the MBean list, e.g. of an
+     *            {@link MBeanListRefresher}
+     */
+    public MBeanInfoCache(int maxSize, LongSupplier ttl) {
+        this(maxSize, true, ttl);
+    }
+
+    private MBeanInfoCache(int maxSize, boolean expiring, LongSupplier ttl) {
+        this.maxSize = maxSize;
+        this.expiring = expiring;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > MBeanInfoCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache whose entries never expire. It's up to the caller to remove stale entries.
+     */
+    public static MBeanInfoCache nonExpiring(int maxSize) {
+        return new MBeanInfoCache(maxSize, false, () -> Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the cached metadata of the MBean, or loads it with the given loader and caches it.
+     */
+    public <E extends Exception> JSONObject get(String mbean, Loader<E> loader) throws E {
+        return entry(mbean, loader).info();
+    }
+
+    /**
+     * Returns the index of the operations of the MBean, loading and caching its metadata if needed.
+     */
+    public <E extends Exception> OperationIndex getOperations(String mbean, Loader<E> loader) throws E {
+        return entry(mbean, loader).operations();
+    }
+
+    private <E extends Exception> Entry entry(String mbean, Loader<E> loader) throws E {
+        if (maxSize <= 0) {
+            misses.incrementAndGet();
+            return new Entry(loader.load(mbean));
+        }
+
+        String key = canonical(mbean);
+        long removalsBefore;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isValid(entry)) {
+                    hits.incrementAndGet();
+                    return entry;
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            removalsBefore = removals;
+        }
+
+        // Loaded outside the lock, so the MBean may have been unregistered meanwhile
+        misses.incrementAndGet();
+        Entry loaded = new Entry(loader.load(mbean));
+        synchronized (entries) {
+            if (removals == removalsBefore) {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached metadata of the MBean without loading it, or {@code null} if it isn't cached.
+     * Hits and misses aren't counted.
+     */
+    public JSONObject getIfPresent(String mbean) {
+        synchronized (entries) {
+            Entry entry = entries.get(canonical(mbean));
+            return entry != null && isValid(entry) ? entry.info() : null;
+        }
+    }
+
+    private boolean isValid(Entry entry) {
+        return !expiring || (System.currentTimeMillis() - entry.timestamp()) < ttl.getAsLong();
+    }
+
+    /**
+     * Caches the metadata of the MBean, e.g. from a snapshot.
+     */
+    public void put(String mbean, JSONObject info) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(canonical(mbean), new Entry(info));
+        }
+    }
+
+    /**
+     * Returns a copy of the valid entries, from the least to the most recently used.
+     */
+    public Map<String, JSONObject> entries() {
+        Map<String, JSONObject> copy = new LinkedHashMap<>();
+        synchronized (entries) {
+            entries.forEach((mbean, entry) -> {
+                if (isValid(entry)) {
+                    copy.put(mbean, entry.info());
+                }
+            });
+        }
+        return copy;
+    }
+
+    public void remove(String mbean) {
+        String key = canonical(mbean);
+        synchronized (entries) {
+            removals++;
+            if (entries.remove(key) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            removals++;
+            evictions.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the canonical form of the MBean name, or the name itself if it's invalid, in which case
+     * loading its metadata fails anyway.
+     */
+    static String canonical(String mbean) {
+        try {
+            return new ObjectName(mbean).getCanonicalName();
+        } catch (MalformedObjectNameException e) {
+            return mbean;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
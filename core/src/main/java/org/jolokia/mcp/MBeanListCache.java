@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cache of the MBean names of a JVM.
+ * <p>
+ * By default the cache expires after {@link #CACHE_TTL_MILLIS} or the given TTL. A cache created with
+ * {@link #nonExpiring(List)} is instead kept up-to-date incrementally via {@link #add(String)}
+ * and {@link #remove(String)}, e.g. from MBean registration notifications.
+ */
+public class MBeanListCache {
+    /**
+     * Default cache Time-To-Live in milliseconds.
+     */
+    static final long CACHE_TTL_MILLIS = 5 * 60 * 1000; // 5 minutes
+
+    private final Set<String> mbeans;
+    private final long timestamp;
+    private final long ttl;
+
+    /**
+     * Snapshot of the MBean names handed out to callers, rebuilt only after modifications.
+     */
+    private List<String> snapshot;
+
+    public MBeanListCache(List<String> mbeans) {
+        this(mbeans, CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * @param ttl Time-To-Live in milliseconds, or {@link Long#MAX_VALUE} for a cache that never expires
+     */
+    public MBeanListCache(List<String> mbeans, long ttl) {
+        this.mbeans = new LinkedHashSet<>(mbeans);
+        this.snapshot = mbeans;
+        this.timestamp = System.currentTimeMillis();
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates a cache that never expires. It's up to the caller to keep it up-to-date.
+     */
+    public static MBeanListCache nonExpiring(List<String> mbeans) {
+        return new MBeanListCache(mbeans, Long.MAX_VALUE);
+    }
+
+    public boolean isValid() {
+        return ttl == Long.MAX_VALUE || (System.currentTimeMillis() - timestamp) < ttl;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Checks whether the cache holds exactly the given MBean names, regardless of their order.
+     */
+    public synchronized boolean hasSameMBeans(List<String> other) {
+        return mbeans.size() == other.size() && mbeans.containsAll(other);
+    }
+
+    public synchronized List<String> getMBeans() {
+        if (snapshot == null) {
+            snapshot = new ArrayList<>(mbeans);
+        }
+        return snapshot;
+    }
+
+    public synchronized void add(String mbean) {
+        if (mbeans.add(mbean)) {
+            snapshot = null;
+        }
+    }
+
+    public synchronized void remove(String mbean) {
+        if (mbeans.remove(mbean)) {
+            snapshot = null;
+        }
+    }
+}
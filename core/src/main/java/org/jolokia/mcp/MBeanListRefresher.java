@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps an expiring {@link MBeanListCache} of a JVM with stale-while-revalidate semantics.
+ * <p>
+ * Only the very first call waits for the MBean list to be fetched. After that, callers always get
+ * the cached list immediately; when it has expired, a single background refresh is started and the
+ * stale list is returned until the refresh completes. Concurrent callers never trigger more than one
+ * fetch at a time, so the target sees at most one fetch per TTL.
+ * <p>
+ * The TTL adapts to how often the MBeans change: each refresh that finds the same MBeans doubles
+ * the TTL up to the max TTL, and a refresh that finds changes resets it to the base TTL.
+ * <p>
+ * The refreshes run on the given executor, usually the {@link JolokiaMcpExecutor}, so that they are
+ * bounded along with the tool calls and stopped with it. If the executor rejects a refresh, the stale
+ * list is served and the refresh is retried on the next call.
+ */
+public class MBeanListRefresher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MBeanListRefresher.class);
+
+    static final String TTL = "jolokia.mcp.mbean-list-cache.ttl";
+    static final String MAX_TTL = "jolokia.mcp.mbean-list-cache.max-ttl";
+
+    static final long DEFAULT_MAX_TTL_MILLIS = 30 * 60 * 1000; // 30 minutes
+
+    @FunctionalInterface
+    public interface Fetcher<E extends Exception> {
+        List<String> fetch() throws E;
+    }
+
+    private final long ttl;
+    private final long maxTtl;
+    private final Executor executor;
+
+    private final Object loadLock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile MBeanListCache cache;
+
+    public MBeanListRefresher(long ttl, long maxTtl, Executor executor) {
+        this.ttl = ttl;
+        this.maxTtl = Math.max(ttl, maxTtl);
+        this.executor = executor;
+    }
+
+    public static MBeanListRefresher defaults(Executor executor) {
+        return new MBeanListRefresher(MBeanListCache.CACHE_TTL_MILLIS, DEFAULT_MAX_TTL_MILLIS, executor);
+    }
+
+    public static MBeanListRefresher fromConfig(Config config, Executor executor) {
+        return new MBeanListRefresher(
+            config.getOptionalValue(TTL, Long.class).orElse(MBeanListCache.CACHE_TTL_MILLIS),
+            config.getOptionalValue(MAX_TTL, Long.class).orElse(DEFAULT_MAX_TTL_MILLIS),
+            executor);
+    }
+
+    public <E extends Exception> List<String> get(Fetcher<E> fetcher) throws E {
+        MBeanListCache current = cache;
+        if (current == null) {
+            synchronized (loadLock) {
+                current = cache;
+                if (current == null) {
+                    misses.incrementAndGet();
+                    current = update(fetcher.fetch(), null);
+                    return current.getMBeans();
+                }
+            }
+        }
+        hits.incrementAndGet();
+        if (!current.isValid() && refreshing.compareAndSet(false, true)) {
+            MBeanListCache stale = current;
+            try {
+                executor.execute(() -> refresh(fetcher, stale));
+            } catch (RejectedExecutionException e) {
+                refreshing.set(false);
+                LOG.debug("MBean list refresh rejected, serving the cached one: {}", e.getMessage());
+            }
+        }
+        return current.getMBeans();
+    }
+
+    private void refresh(Fetcher<?> fetcher, MBeanListCache stale) {
+        try {
+            update(fetcher.fetch(), stale);
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh the MBean list, serving the cached one: {}", e.getMessage());
+            LOG.debug("Refresh failure", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private MBeanListCache update(List<String> mbeans, MBeanListCache previous) {
+        long nextTtl = previous != null && previous.hasSameMBeans(mbeans)
+            ? Math.min(Math.max(previous.getTtl() * 2, ttl), maxTtl)
+            : ttl;
+        MBeanListCache updated = new MBeanListCache(mbeans, nextTtl);
+        cache = updated;
+        return updated;
+    }
+
+    /**
+     * Returns the current TTL of the list, at least the base TTL, which the metadata of the MBeans
+     * expires with as well.
+     */
+    public long getTtl() {
+        MBeanListCache current = cache;
+        return current == null ? ttl : Math.max(current.getTtl(), ttl);
+    }
+
+    /**
+     * Starts with an already expired list, e.g. from a snapshot, so that the first call gets it right
+     * away and refreshes it in the background. Does nothing if the list has been fetched already.
+     */
+    public void seed(List<String> mbeans) {
+        synchronized (loadLock) {
+            if (cache == null) {
+                cache = new MBeanListCache(mbeans, 0);
+            }
+        }
+    }
+
+    /**
+     * The current cache, or {@code null} if the MBean list hasn't been fetched yet.
+     */
+    public MBeanListCache getCache() {
+        return cache;
+    }
+
+    public boolean isRefreshing() {
+        return refreshing.get();
+    }
+
+    /**
+     * Number of calls served from the cache, including stale ones.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of calls that had to wait for the MBean list to be fetched.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
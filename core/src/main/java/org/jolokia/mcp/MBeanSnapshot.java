@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jolokia.json.JSONObject;
+
+/**
+ * MBean names and metadata of a target at some point in time, e.g. to start a new session with the
+ * caches of the previous one.
+ *
+ * @param url       URL of the target
+ * @param mbeans    MBean names
+ * @param mbeanInfo metadata of the MBeans, as far as it was fetched
+ */
+public record MBeanSnapshot(String url, List<String> mbeans, Map<String, JSONObject> mbeanInfo) {
+
+    /**
+     * Checks cheaply whether the snapshot still holds the given MBeans, by their number and a hash of
+     * their names.
+     */
+    public boolean matches(Collection<String> current) {
+        return mbeans.size() == current.size() && hash(mbeans) == hash(current);
+    }
+
+    /**
+     * Order-independent 64-bit hash of MBean names: the sum of the FNV-1a hashes of the names.
+     */
+    static long hash(Collection<String> names) {
+        long sum = 0;
+        for (String name : names) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            sum += hash;
+        }
+        return sum;
+    }
+}
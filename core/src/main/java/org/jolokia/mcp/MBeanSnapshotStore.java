@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.Config;
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores {@link MBeanSnapshot}s in {@code jolokia.mcp.snapshot.dir}, one file per target URL.
+ * <p>
+ * The snapshots are written in a compact binary format, and read through a memory-mapped buffer, so
+ * that loading them at startup is much cheaper than fetching and parsing the {@code /list} JSON
+ * again. A snapshot that can't be read, e.g. one written by an incompatible version, is ignored.
+ */
+public class MBeanSnapshotStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MBeanSnapshotStore.class);
+
+    static final String DIR = "jolokia.mcp.snapshot.dir";
+
+    private static final int MAGIC = 0x4a4d4353; // "JMCS"
+    private static final int VERSION = 1;
+
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte OBJECT = 6;
+    private static final byte ARRAY = 7;
+
+    private final Path dir;
+
+    /**
+     * @param dir directory of the snapshots, or {@code null} to neither load nor save any
+     */
+    public MBeanSnapshotStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public static MBeanSnapshotStore disabled() {
+        return new MBeanSnapshotStore(null);
+    }
+
+    public static MBeanSnapshotStore fromConfig(Config config) {
+        return new MBeanSnapshotStore(config.getOptionalValue(DIR, String.class).map(Path::of).orElse(null));
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * Loads the snapshot of the target, if there is a readable one.
+     */
+    public Optional<MBeanSnapshot> load(String url) {
+        if (dir == null) {
+            return Optional.empty();
+        }
+        Path file = file(url);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            MBeanSnapshot snapshot = read(new DataInputStream(new ByteBufferInputStream(buffer)));
+            if (!url.equals(snapshot.url())) {
+                // Hash collision of the file names
+                return Optional.empty();
+            }
+            LOG.debug("Loaded snapshot of {} MBeans of {} from {}", snapshot.mbeans().size(), url, file);
+            return Optional.of(snapshot);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring unreadable MBean snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves the snapshot, replacing the previous one of the target atomically.
+     */
+    public void save(MBeanSnapshot snapshot) {
+        if (dir == null) {
+            return;
+        }
+        Path file = file(snapshot.url());
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(snapshot, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debug("Saved snapshot of {} MBeans of {} to {}", snapshot.mbeans().size(), snapshot.url(), file);
+        } catch (IOException e) {
+            LOG.warn("Failed to save MBean snapshot {}: {}", file, e.getMessage());
+        } finally {
+            deleteTemporary(tmp);
+        }
+    }
+
+    /**
+     * Deletes what's left of the temporary file if the snapshot couldn't be written or moved.
+     */
+    private static void deleteTemporary(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            LOG.debug("Failed to delete {}: {}", tmp, e.getMessage());
+        }
+    }
+
+    Path file(String url) {
+        return dir.resolve(Long.toHexString(MBeanSnapshot.hash(List.of(url))) + ".snapshot");
+    }
+
+    static void write(MBeanSnapshot snapshot, DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(snapshot.url(), out);
+        out.writeInt(snapshot.mbeans().size());
+        for (String mbean : snapshot.mbeans()) {
+            writeString(mbean, out);
+        }
+        out.writeInt(snapshot.mbeanInfo().size());
+        for (Map.Entry<String, JSONObject> entry : snapshot.mbeanInfo().entrySet()) {
+            writeString(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    /**
+     * Reads a snapshot. Every count and length is checked against the bytes left, so that a corrupt
+     * file fails with an {@link IOException} instead of allocating arbitrary amounts of memory.
+     */
+    static MBeanSnapshot read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a snapshot of this version");
+        }
+        String url = readString(in);
+        // Each MBean name takes at least its length
+        int count = readCount(in, 4);
+        List<String> mbeans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mbeans.add(readString(in));
+        }
+        // Each entry takes at least the length of the name and the type of the value
+        int infoCount = readCount(in, 5);
+        Map<String, JSONObject> mbeanInfo = new LinkedHashMap<>();
+        for (int i = 0; i < infoCount; i++) {
+            String mbean = readString(in);
+            mbeanInfo.put(mbean, (JSONObject) readValue(in));
+        }
+        return new MBeanSnapshot(url, mbeans, mbeanInfo);
+    }
+
+    private static void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String text) {
+            out.writeByte(STRING);
+            writeString(text, out);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number number) {
+            out.writeByte(LONG);
+            out.writeLong(number.longValue());
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(OBJECT);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()), out);
+                writeValue(entry.getValue(), out);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(ARRAY);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(element, out);
+            }
+        } else {
+            out.writeByte(STRING);
+            writeString(value.toString(), out);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+        case NULL -> null;
+        case STRING -> readString(in);
+        case LONG -> in.readLong();
+        case DOUBLE -> in.readDouble();
+        case TRUE -> Boolean.TRUE;
+        case FALSE -> Boolean.FALSE;
+        case OBJECT -> {
+            int size = readCount(in, 5);
+            JSONObject object = new JSONObject();
+            for (int i = 0; i < size; i++) {
+                String key = readString(in);
+                object.put(key, readValue(in));
+            }
+            yield object;
+        }
+        case ARRAY -> {
+            int size = readCount(in, 1);
+            JSONArray array = new JSONArray();
+            for (int i = 0; i < size; i++) {
+                array.add(readValue(in));
+            }
+            yield array;
+        }
+        default -> throw new IOException("Unknown value type " + type);
+        };
+    }
+
+    /**
+     * Length-prefixed UTF-8, since {@link DataOutput#writeUTF(String)} is limited to 64 KB.
+     */
+    private static void writeString(String text, DataOutput out) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES || length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the number of elements that follow, each taking at least the given number of bytes.
+     */
+    private static int readCount(DataInputStream in, int minBytes) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || (long) count * minBytes > in.available()) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final MappedByteBuffer buffer;
+
+        ByteBufferInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
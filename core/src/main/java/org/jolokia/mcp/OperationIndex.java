@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the operations of an MBean by name and number of arguments, to resolve overloaded
+ * operations to the signature that Jolokia needs to execute them, e.g.
+ * {@code getThreadInfo(long,int)} for {@code getThreadInfo} with two arguments.
+ * <p>
+ * It's built once from the operation metadata ({@code op} of a Jolokia {@code /list}), which maps
+ * each operation name to either a single descriptor or, for an overloaded operation, a list of
+ * descriptors. An operation whose name and arity identify a single overload resolves with a lookup;
+ * only several overloads of the same arity are narrowed down by how well the argument values fit
+ * the parameter types.
+ */
+public final class OperationIndex {
+
+    private static final Set<String> INTEGRAL_TYPES = Set.of(
+        "int", "long", "short", "byte",
+        "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte", "java.math.BigInteger");
+    private static final Set<String> DECIMAL_TYPES = Set.of(
+        "double", "float", "java.lang.Double", "java.lang.Float", "java.math.BigDecimal");
+    private static final Set<String> BOOLEAN_TYPES = Set.of("boolean", "java.lang.Boolean");
+    private static final Set<String> PRIMITIVE_TYPES = Set.of(
+        "int", "long", "short", "byte", "double", "float", "boolean", "char");
+
+    static final OperationIndex EMPTY = new OperationIndex(Map.of(), Set.of());
+
+    private record Overload(Map<?, ?> descriptor, List<String> types, String signature) {
+    }
+
+    /**
+     * Overloads by operation name and number of arguments
+     */
+    private final Map<String, Map<Integer, List<Overload>>> operations;
+    private final Set<String> overloaded;
+
+    private OperationIndex(Map<String, Map<Integer, List<Overload>>> operations, Set<String> overloaded) {
+        this.operations = operations;
+        this.overloaded = overloaded;
+    }
+
+    /**
+     * Builds the index of the operation metadata of an MBean.
+     *
+     * @param ops operation metadata of the MBean, or {@code null} if it has none
+     */
+    public static OperationIndex of(Map<?, ?> ops) {
+        if (ops == null || ops.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Map<Integer, List<Overload>>> operations = new HashMap<>();
+        Set<String> overloaded = new HashSet<>();
+        ops.forEach((key, value) -> {
+            String op = String.valueOf(key);
+            List<?> descriptors = value instanceof List<?> list ? list : List.of(value);
+            if (descriptors.size() > 1) {
+                overloaded.add(op);
+            }
+            Map<Integer, List<Overload>> byArity = new HashMap<>();
+            for (Object descriptor : descriptors) {
+                List<String> types = parameterTypes(descriptor);
+                if (types != null) {
+                    byArity.computeIfAbsent(types.size(), arity -> new ArrayList<>(1))
+                        .add(new Overload((Map<?, ?>) descriptor, types, op + "(" + String.join(",", types) + ")"));
+                }
+            }
+            operations.put(op, byArity);
+        });
+        return new OperationIndex(operations, overloaded);
+    }
+
+    /**
+     * Returns the operation name with the signature of the best matching overload, or the operation
+     * name as is if it already has a signature, isn't overloaded, or no overload matches.
+     */
+    public String resolve(String op, Object[] args) {
+        if (op.contains("(") || !overloaded.contains(op)) {
+            return op;
+        }
+        Overload overload = overload(op, args);
+        return overload == null ? op : overload.signature();
+    }
+
+    /**
+     * Returns the descriptor of the operation, or of its best matching overload, or {@code null} if
+     * the operation doesn't exist or no overload matches the number of arguments.
+     *
+     * @param op operation name without signature
+     */
+    public Map<?, ?> descriptor(String op, Object[] args) {
+        Overload overload = overload(op, args);
+        return overload == null ? null : overload.descriptor();
+    }
+
+    private Overload overload(String op, Object[] args) {
+        Map<Integer, List<Overload>> byArity = operations.get(op);
+        List<Overload> candidates = byArity == null ? null : byArity.get(args == null ? 0 : args.length);
+        if (candidates == null) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        Overload best = null;
+        int bestScore = -1;
+        for (Overload candidate : candidates) {
+            int score = 0;
+            for (int i = 0; i < args.length && score >= 0; i++) {
+                int argScore = score(candidate.types().get(i), args[i]);
+                score = argScore < 0 ? -1 : score + argScore;
+            }
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the parameter types of an operation descriptor, or {@code null} if it isn't one.
+     */
+    public static List<String> parameterTypes(Object overload) {
+        if (!(overload instanceof Map<?, ?> descriptor) || !(descriptor.get("args") instanceof List<?> args)) {
+            return null;
+        }
+        return args.stream()
+            .map(arg -> arg instanceof Map<?, ?> param ? String.valueOf(param.get("type")) : String.valueOf(arg))
+            .toList();
+    }
+
+    /**
+     * Returns the return type of an operation descriptor, or {@code null} if it isn't known.
+     */
+    public static String returnType(Map<?, ?> descriptor) {
+        return descriptor == null || descriptor.get("ret") == null ? null : String.valueOf(descriptor.get("ret"));
+    }
+
+    /**
+     * How well an argument value fits a parameter type: negative if it doesn't fit at all, higher
+     * for a better fit. Jolokia converts strings to most types, so a string fits any type loosely.
+     */
+    static int score(String type, Object arg) {
+        if ("java.lang.Object".equals(type)) {
+            return 1;
+        }
+        if (arg == null) {
+            return PRIMITIVE_TYPES.contains(type) ? -1 : 1;
+        }
+        if (arg instanceof Boolean) {
+            return BOOLEAN_TYPES.contains(type) ? 3 : stringOrNone(type);
+        }
+        if (arg instanceof Number) {
+            boolean decimal = arg instanceof Double || arg instanceof Float || arg instanceof BigDecimal;
+            if (INTEGRAL_TYPES.contains(type)) {
+                return decimal ? -1 : 3;
+            }
+            if (DECIMAL_TYPES.contains(type)) {
+                return decimal ? 3 : 2;
+            }
+            return stringOrNone(type);
+        }
+        if (arg instanceof String) {
+            return "java.lang.String".equals(type) ? 3 : 1;
+        }
+        if (arg instanceof Collection<?> || arg.getClass().isArray()) {
+            return type.startsWith("[") || type.startsWith("java.util.") ? 3 : -1;
+        }
+        if (arg instanceof Map<?, ?>) {
+            return type.startsWith("[") || PRIMITIVE_TYPES.contains(type) ? -1 : 2;
+        }
+        return 0;
+    }
+
+    private static int stringOrNone(String type) {
+        return "java.lang.String".equals(type) ? 1 : -1;
+    }
+}
@@ -16,27 +16,21 @@
  */
 package org.jolokia.mcp;
 
-import java.util.List;
+/**
+ * Format of the values in the tool responses.
+ */
+public enum OutputFormat {
 
-class MBeanListCache {
     /**
-     * Cache Time-To-Live in milliseconds.
+     * JSON without any whitespace.
      */
-    static final long CACHE_TTL_MILLIS = 5 * 60 * 1000; // 5 minutes
-
-    final List<String> mbeans;
-    final long timestamp;
-
-    MBeanListCache(List<String> mbeans) {
-        this.mbeans = mbeans;
-        this.timestamp = System.currentTimeMillis();
-    }
+    JSON,
 
-    boolean isValid() {
-        return (System.currentTimeMillis() - timestamp) < CACHE_TTL_MILLIS;
-    }
-
-    List<String> getMBeans() {
-        return mbeans;
-    }
+    /**
+     * Plain text: tab-separated tables for collections of objects with the same keys (e.g. the
+     * attributes of an MBean, or the values of a TabularData), {@code key<TAB>value} lines for other
+     * objects, and one line per element for lists (e.g. MBean names). Keys aren't repeated for each
+     * row and nothing is quoted, so it's much smaller than JSON.
+     */
+    TABLE
 }
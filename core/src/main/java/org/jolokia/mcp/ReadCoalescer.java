@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Shares the result of identical concurrent read-only calls, i.e. calls to the same target with the
+ * same method and arguments, so that e.g. many MCP clients polling the same attribute at the same
+ * time only cause one call to the target.
+ * <p>
+ * Optionally, reads of read-only attributes are also cached for a very short time
+ * ({@code jolokia.mcp.read-cache.ttl}), so that calls arriving right after each other are shared as
+ * well. Writes and operations on an MBean evict its cached results, and the calls in flight that may
+ * observe it, i.e. the ones about the MBean, about a pattern or about all MBeans, so that later calls
+ * don't share a result from before the change. MBean names are compared in their canonical form.
+ */
+@ApplicationScoped
+public class ReadCoalescer {
+
+    /**
+     * Number of cached results above which expired ones are purged.
+     */
+    private static final int PURGE_THRESHOLD = 1000;
+
+    @ConfigProperty(name = "jolokia.mcp.coalescing.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /**
+     * Time-To-Live in milliseconds of the cached results; {@code 0} disables the cache.
+     */
+    @ConfigProperty(name = "jolokia.mcp.read-cache.ttl", defaultValue = "0")
+    long ttl;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Key, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    public ReadCoalescer() {
+    }
+
+    public ReadCoalescer(boolean enabled, long ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Coalescer that doesn't share anything, for using the services outside of CDI.
+     */
+    public static ReadCoalescer disabled() {
+        return new ReadCoalescer(false, 0);
+    }
+
+    /**
+     * Whether results can be cached at all, i.e. whether it's worth checking if a call is cacheable.
+     */
+    public boolean isCaching() {
+        return enabled && ttl > 0;
+    }
+
+    /**
+     * Returns a {@link Uni} that, when subscribed, shares the result of an identical call that is in
+     * flight or cached, or else makes the call.
+     *
+     * @param args      arguments of the call other than the MBean
+     * @param cacheable whether the result may be cached, i.e. whether it's a read of read-only attributes
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Uni<T> share(String target, String method, String mbean, List<?> args, boolean cacheable,
+                            Supplier<Uni<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Uni.createFrom().deferred(() -> {
+            Key key = new Key(target, method, mbean == null ? null : MBeanInfoCache.canonical(mbean), args);
+            if (ttl > 0 && cacheable) {
+                Cached cached = cache.get(key);
+                if (cached != null && cached.expires > System.currentTimeMillis()) {
+                    cacheHits.increment();
+                    return Uni.createFrom().item((T) cached.value);
+                }
+            }
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> shared = inFlight.putIfAbsent(key, future);
+            if (shared != null) {
+                coalesced.increment();
+                return subscribe(shared);
+            }
+            // Not tied to the subscriber, so that the call completes for the others even if it cancels
+            long started = generation.get();
+            call.get().subscribe().with(
+                value -> {
+                    if (ttl > 0 && cacheable && generation.get() == started) {
+                        cache(key, value);
+                    }
+                    inFlight.remove(key, future);
+                    future.complete(value);
+                },
+                failure -> {
+                    inFlight.remove(key, future);
+                    future.completeExceptionally(failure);
+                });
+            return subscribe(future);
+        });
+    }
+
+    /**
+     * Each subscriber gets its own copy of the shared future, as Mutiny cancels the stage of a
+     * cancelled subscription, which would otherwise fail all the callers sharing it.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Uni<T> subscribe(CompletableFuture<Object> future) {
+        return Uni.createFrom().completionStage(future::copy).map(value -> (T) value);
+    }
+
+    private void cache(Key key, Object value) {
+        long now = System.currentTimeMillis();
+        if (cache.size() >= PURGE_THRESHOLD) {
+            cache.values().removeIf(cached -> cached.expires <= now);
+        }
+        cache.put(key, new Cached(value, now + ttl));
+    }
+
+    /**
+     * Evicts the cached results and the calls in flight that may observe a change of an MBean, after
+     * it may have changed. Callers already sharing an evicted call still get its result, but later
+     * callers make a new call, and calls in flight when it's evicted don't cache their results.
+     */
+    public void evict(String target, String mbean) {
+        generation.incrementAndGet();
+        String canonical = mbean == null ? null : MBeanInfoCache.canonical(mbean);
+        cache.keySet().removeIf(key -> key.observes(target, canonical));
+        inFlight.keySet().removeIf(key -> key.observes(target, canonical));
+    }
+
+    /**
+     * Number of calls that shared the result of an identical call in flight.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Number of calls that got a cached result.
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Arguments may contain {@code null}s and arrays, so they're compared with {@link Arrays#deepEquals}.
+     */
+    private record Key(String target, String method, String mbean, Object[] args) {
+
+        Key(String target, String method, String mbean, List<?> args) {
+            this(target, method, mbean, args.toArray());
+        }
+
+        /**
+         * Whether the result of the call may change with the given MBean of the target: calls about
+         * the MBean itself, about a pattern, or about all MBeans.
+         */
+        boolean observes(String target, String canonicalMBean) {
+            return Objects.equals(this.target, target)
+                && (mbean == null || canonicalMBean == null || mbean.equals(canonicalMBean) || isPattern(mbean));
+        }
+
+        private static boolean isPattern(String mbean) {
+            try {
+                return new ObjectName(mbean).isPattern();
+            } catch (MalformedObjectNameException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key
+                && Objects.equals(target, key.target)
+                && method.equals(key.method)
+                && Objects.equals(mbean, key.mbean)
+                && Arrays.deepEquals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(target, method, mbean, Arrays.deepHashCode(args));
+        }
+    }
+
+    private record Cached(Object value, long expires) {
+    }
+}
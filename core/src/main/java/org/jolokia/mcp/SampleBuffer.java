@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+
+/**
+ * Fixed-size ring buffer of numeric samples of an attribute. Timestamps and values are kept in
+ * primitive arrays, so that recording a sample doesn't allocate. When the buffer is full, the
+ * oldest sample is overwritten.
+ */
+public class SampleBuffer {
+
+    private final long[] timestamps;
+    private final double[] values;
+    private int next;
+    private int count;
+
+    public SampleBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    public synchronized void add(long timestamp, double value) {
+        timestamps[next] = timestamp;
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (count < values.length) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Summarises the samples in the buffer with {@code count}, {@code min}, {@code max}, {@code avg}
+     * and {@code rate} (change per second between the first and last samples), plus the series
+     * downsampled to at most the given number of points as {@code [timestamp, value]} pairs. Each
+     * point is the average of a bucket of consecutive samples, timestamped with the bucket's last
+     * sample.
+     */
+    public synchronized JSONObject summarize(int points) {
+        JSONObject summary = new JSONObject();
+        summary.put("count", count);
+        if (count == 0) {
+            summary.put("samples", new JSONArray());
+            return summary;
+        }
+
+        int first = (next - count + values.length) % values.length;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values[(first + i) % values.length];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        int last = (first + count - 1) % values.length;
+        long elapsed = timestamps[last] - timestamps[first];
+        summary.put("min", min);
+        summary.put("max", max);
+        summary.put("avg", sum / count);
+        summary.put("rate", elapsed > 0 ? (values[last] - values[first]) * 1000 / elapsed : 0.0);
+        summary.put("samples", downsample(first, Math.max(1, Math.min(points, count))));
+        return summary;
+    }
+
+    private JSONArray downsample(int first, int points) {
+        JSONArray samples = new JSONArray();
+        for (int bucket = 0; bucket < points; bucket++) {
+            // Spread the samples evenly over the buckets
+            int from = (int) ((long) bucket * count / points);
+            int to = (int) ((long) (bucket + 1) * count / points);
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += values[(first + i) % values.length];
+            }
+            JSONArray point = new JSONArray();
+            point.add(timestamps[(first + to - 1) % values.length]);
+            point.add(sum / (to - from));
+            samples.add(point);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes Jolokia values in the {@link OutputFormat#TABLE} format, stopping as soon as the output
+ * reaches a byte limit like {@link BoundedJsonWriter}. Values nested deeper than a table cell are
+ * written as JSON.
+ * <p>
+ * The columns of a table are the keys of its rows, collected only from the rows that may fit in the
+ * limit, so that a huge table isn't scanned in full before its header is written.
+ */
+public final class TableWriter {
+
+    private final BoundedJsonWriter out;
+
+    private TableWriter(long maxBytes) {
+        this.out = new BoundedJsonWriter(maxBytes);
+    }
+
+    /**
+     * Writes the value as a table.
+     *
+     * @param maxBytes maximum number of UTF-8 bytes to write before truncating, or {@code 0} for no limit
+     */
+    public static String toTable(Object value, long maxBytes) {
+        TableWriter writer = new TableWriter(maxBytes);
+        writer.writeTable(value);
+        return writer.out.finish();
+    }
+
+    private void writeTable(Object value) {
+        List<?> rows = value instanceof Collection<?> || value != null && value.getClass().isArray()
+            ? elements(value) : null;
+        if (value instanceof Map<?, ?> map) {
+            if (!map.isEmpty() && map.values().stream().allMatch(Map.class::isInstance)) {
+                // Row per entry, e.g. attribute descriptors by attribute name
+                Set<Object> columns = columns(map.values());
+                out.append("name");
+                columns.forEach(column -> {
+                    out.append("\t");
+                    writeCell(column);
+                });
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (out.isTruncated()) {
+                        return;
+                    }
+                    out.append("\n");
+                    writeCell(entry.getKey());
+                    out.append("\t");
+                    writeRow((Map<?, ?>) entry.getValue(), columns);
+                }
+                return;
+            }
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (out.isTruncated()) {
+                    return;
+                }
+                if (!first) {
+                    out.append("\n");
+                }
+                first = false;
+                writeCell(entry.getKey());
+                out.append("\t");
+                writeCell(entry.getValue());
+            }
+        } else if (rows != null && !rows.isEmpty() && rows.stream().allMatch(Map.class::isInstance)) {
+            // Row per element, e.g. the rows of a TabularData
+            Set<Object> columns = columns(rows);
+            boolean first = true;
+            for (Object column : columns) {
+                if (!first) {
+                    out.append("\t");
+                }
+                first = false;
+                writeCell(column);
+            }
+            for (Object row : rows) {
+                if (out.isTruncated()) {
+                    return;
+                }
+                out.append("\n");
+                writeRow((Map<?, ?>) row, columns);
+            }
+        } else if (rows != null) {
+            for (int i = 0; i < rows.size() && !out.isTruncated(); i++) {
+                if (i > 0) {
+                    out.append("\n");
+                }
+                writeCell(rows.get(i));
+            }
+        } else if (value instanceof CharSequence text) {
+            out.appendChars(text, false);
+        } else {
+            writeCell(value);
+        }
+    }
+
+    private static List<?> elements(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection instanceof List<?> list ? list : new ArrayList<>(collection);
+        }
+        int length = Array.getLength(value);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(Array.get(value, i));
+        }
+        return elements;
+    }
+
+    /**
+     * Collects the keys of the rows, in order, until the header and the rows seen so far need more
+     * bytes than the limit: the rows after that can't be written, so their keys wouldn't have a cell.
+     * A header cell needs at least its length plus a separator, and a row at least a separator per
+     * key it has.
+     */
+    private Set<Object> columns(Collection<?> rows) {
+        Set<Object> columns = new LinkedHashSet<>();
+        long minBytes = 0;
+        for (Object row : rows) {
+            if (minBytes > out.getMaxBytes()) {
+                break;
+            }
+            Map<?, ?> map = (Map<?, ?>) row;
+            for (Object column : map.keySet()) {
+                if (columns.add(column)) {
+                    minBytes += String.valueOf(column).length() + 1;
+                }
+            }
+            minBytes += Math.max(map.size(), 1);
+        }
+        return columns;
+    }
+
+    private void writeRow(Map<?, ?> row, Set<Object> columns) {
+        boolean first = true;
+        for (Object column : columns) {
+            if (out.isTruncated()) {
+                return;
+            }
+            if (!first) {
+                out.append("\t");
+            }
+            first = false;
+            writeCell(row.get(column));
+        }
+    }
+
+    /**
+     * Writes a scalar as is, with the characters that separate cells and rows replaced by spaces,
+     * and anything else as JSON.
+     */
+    private void writeCell(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Map<?, ?> || value instanceof Iterable<?> || value.getClass().isArray()) {
+            out.write(value);
+            return;
+        }
+        String text = value instanceof Double || value instanceof Float
+            ? Double.isFinite(((Number) value).doubleValue()) ? value.toString() : ""
+            : value.toString();
+        for (int i = 0; i < text.length() && !out.isTruncated(); i++) {
+            char c = text.charAt(i);
+            out.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+}
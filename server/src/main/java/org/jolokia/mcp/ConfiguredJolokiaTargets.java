@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Jolokia targets configured with {@code jolokia.mcp.target.<name>.url} properties, in addition to the
+ * default target configured with {@code jolokia.mcp.url}.
+ * <p>
+ * Each target has its own {@link JolokiaClient}, and thus its own connection pool and caches.
+ */
+@ApplicationScoped
+public class ConfiguredJolokiaTargets implements JolokiaTargets {
+
+    private static final Pattern TARGET_URL = Pattern.compile("jolokia\\.mcp\\.target\\.([^.]+)\\.url");
+
+    private final JolokiaClient defaultClient;
+    private final Map<String, JolokiaService> configured;
+
+    @Inject
+    public ConfiguredJolokiaTargets(JolokiaClient defaultClient,
+                                    Config config,
+                                    @ConfigProperty(name = "jolokia.mcp.preferred-http-method")
+                                    Optional<String> preferredHttpMethod,
+                                    @ConfigProperty(name = "jolokia.mcp.mbean-info-cache.max-size", defaultValue = "500")
+                                    int mbeanInfoCacheMaxSize,
+                                    JolokiaMcpExecutor executor) {
+        this.defaultClient = defaultClient;
+        TransportSettings transportSettings = TransportSettings.fromConfig(config);
+        Map<String, JolokiaService> clients = new TreeMap<>();
+        for (String property : config.getPropertyNames()) {
+            Matcher matcher = TARGET_URL.matcher(property);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String name = matcher.group(1);
+            String url = config.getValue(property, String.class);
+            Optional<String> method = config
+                .getOptionalValue("jolokia.mcp.target.%s.preferred-http-method".formatted(name), String.class)
+                .or(() -> preferredHttpMethod);
+            clients.put(name, new JolokiaClient(url, method, mbeanInfoCacheMaxSize, transportSettings,
+                MBeanListRefresher.fromConfig(config, executor), MBeanSnapshotStore.fromConfig(config)));
+        }
+        this.configured = Collections.unmodifiableMap(clients);
+    }
+
+    /**
+     * The default client is a bean of its own and saves its snapshot itself.
+     */
+    @PreDestroy
+    void saveSnapshots() {
+        configured.values().forEach(client -> ((JolokiaClient) client).saveSnapshot());
+    }
+
+    @Override
+    public Map<String, JolokiaService> resolve(String target) {
+        if (target == null || target.isBlank()) {
+            return Map.of(DEFAULT, defaultClient);
+        }
+        Map<String, JolokiaService> all = all();
+        if (all.containsKey(target)) {
+            return Map.of(target, all.get(target));
+        }
+        if (DEFAULT.equals(target)) {
+            return Map.of(DEFAULT, defaultClient);
+        }
+        Map<String, JolokiaService> matched = new LinkedHashMap<>();
+        all.forEach((name, service) -> {
+            if (JolokiaTargets.matches(target, name)) {
+                matched.put(name, service);
+            }
+        });
+        return matched;
+    }
+
+    /**
+     * All targets; the default target is only included when no targets are configured explicitly.
+     */
+    Map<String, JolokiaService> all() {
+        return configured.isEmpty() ? Map.of(DEFAULT, defaultClient) : configured;
+    }
+}
@@ -16,54 +16,220 @@
  */
 package org.jolokia.mcp;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.management.MalformedObjectNameException;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jolokia.client.EscapeUtil;
+import org.jolokia.client.JolokiaClientBuilder;
+import org.jolokia.client.exception.JolokiaBulkRemoteException;
 import org.jolokia.client.exception.JolokiaException;
+import org.jolokia.client.exception.JolokiaRemoteException;
 import org.jolokia.client.request.HttpMethod;
 import org.jolokia.client.request.JolokiaExecRequest;
 import org.jolokia.client.request.JolokiaListRequest;
 import org.jolokia.client.request.JolokiaReadRequest;
+import org.jolokia.client.request.JolokiaRequest;
+import org.jolokia.client.request.JolokiaSearchRequest;
 import org.jolokia.client.request.JolokiaWriteRequest;
 import org.jolokia.client.response.JolokiaExecResponse;
 import org.jolokia.client.response.JolokiaListResponse;
 import org.jolokia.client.response.JolokiaReadResponse;
+import org.jolokia.client.response.JolokiaResponse;
+import org.jolokia.client.response.JolokiaSearchResponse;
 import org.jolokia.client.response.JolokiaWriteResponse;
+import org.jolokia.json.JSONArray;
 import org.jolokia.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @ApplicationScoped
 public class JolokiaClient implements JolokiaService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(JolokiaClient.class);
+
     org.jolokia.client.JolokiaClient jolokiaClient;
-    MBeanListCache mbeanListCache;
+    final String url;
+    final MBeanListRefresher mbeanListRefresher;
+    final MBeanInfoCache mbeanInfoCache;
+    final MBeanSnapshotStore snapshotStore;
+    final MBeanIndex mbeanIndex = new MBeanIndex();
+    final TransportStats transportStats = new TransportStats();
+
+    /**
+     * Snapshot that the caches were seeded with and that hasn't been validated against the target yet.
+     */
+    private volatile MBeanSnapshot unvalidatedSnapshot;
+
+    private final Object seedLock = new Object();
+    private volatile boolean seeded;
 
     private Optional<HttpMethod> preferredHttpMethod = Optional.empty();
 
+    @Inject
     public JolokiaClient(@ConfigProperty(name = "jolokia.mcp.url", defaultValue = "http://localhost:8778/jolokia")
                          String jolokiaUrl,
                          @ConfigProperty(name = "jolokia.mcp.preferred-http-method")
-                         Optional<String> preferredHttpMethod) {
-        jolokiaClient = new org.jolokia.client.JolokiaClientBuilder().url(jolokiaUrl).build();
+                         Optional<String> preferredHttpMethod,
+                         @ConfigProperty(name = "jolokia.mcp.mbean-info-cache.max-size", defaultValue = "500")
+                         int mbeanInfoCacheMaxSize,
+                         JolokiaMcpExecutor executor) {
+        this(jolokiaUrl, preferredHttpMethod, mbeanInfoCacheMaxSize,
+            TransportSettings.fromConfig(ConfigProvider.getConfig()),
+            MBeanListRefresher.fromConfig(ConfigProvider.getConfig(), executor),
+            MBeanSnapshotStore.fromConfig(ConfigProvider.getConfig()));
+    }
+
+    public JolokiaClient(String jolokiaUrl, Optional<String> preferredHttpMethod, int mbeanInfoCacheMaxSize,
+                         TransportSettings transportSettings, MBeanListRefresher mbeanListRefresher) {
+        this(jolokiaUrl, preferredHttpMethod, mbeanInfoCacheMaxSize, transportSettings, mbeanListRefresher,
+            MBeanSnapshotStore.disabled());
+    }
+
+    public JolokiaClient(String jolokiaUrl, Optional<String> preferredHttpMethod, int mbeanInfoCacheMaxSize,
+                         TransportSettings transportSettings, MBeanListRefresher mbeanListRefresher,
+                         MBeanSnapshotStore snapshotStore) {
+        jolokiaClient = transportSettings.applyTo(new JolokiaClientBuilder().url(jolokiaUrl)).build();
         preferredHttpMethod.ifPresent(this::setPreferredHttpMethod);
+        url = jolokiaUrl;
+        mbeanInfoCache = new MBeanInfoCache(mbeanInfoCacheMaxSize, mbeanListRefresher::getTtl);
+        this.mbeanListRefresher = mbeanListRefresher;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Starts with the caches of a previous session, if there is a snapshot. This is done on first use
+     * rather than on construction, so that creating the client doesn't touch the disk or the target.
+     * The seeded MBean list is already expired, so the first listing returns it right away and
+     * validates it against the target in the background; that validation is started here already, so
+     * that the metadata is validated as early as possible.
+     */
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        MBeanSnapshot snapshot;
+        synchronized (seedLock) {
+            if (seeded) {
+                return;
+            }
+            snapshot = snapshotStore.load(url).orElse(null);
+            if (snapshot != null) {
+                unvalidatedSnapshot = snapshot;
+                mbeanListRefresher.seed(snapshot.mbeans());
+                snapshot.mbeanInfo().forEach(mbeanInfoCache::put);
+            }
+            seeded = true;
+        }
+        if (snapshot != null) {
+            try {
+                listMBeans();
+            } catch (JolokiaException e) {
+                // Never thrown for a seeded list, which is refreshed in the background
+                LOG.debug("Failed to list MBeans", e);
+            }
+        }
+    }
+
+    /**
+     * Drops the metadata seeded from the snapshot if the MBeans of the target have changed since.
+     */
+    private void validateSnapshot(List<String> mbeans) {
+        MBeanSnapshot snapshot = unvalidatedSnapshot;
+        if (snapshot == null) {
+            return;
+        }
+        if (!snapshot.matches(mbeans)) {
+            LOG.debug("MBeans of {} changed since the snapshot, dropping its metadata", url);
+            mbeanInfoCache.clear();
+        }
+        unvalidatedSnapshot = null;
+    }
+
+    /**
+     * Saves the MBean list and the cached metadata as snapshot for the next session, if enabled.
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        MBeanListCache cache = mbeanListRefresher.getCache();
+        if (!snapshotStore.isEnabled() || cache == null || unvalidatedSnapshot != null) {
+            // Nothing new to save
+            return;
+        }
+        snapshotStore.save(new MBeanSnapshot(url, cache.getMBeans(), mbeanInfoCache.entries()));
+    }
+
+    <REQ extends JolokiaRequest, RESP extends JolokiaResponse<REQ>> RESP execute(REQ req) throws JolokiaException {
+        transportStats.begin();
+        boolean failed = true;
+        try {
+            RESP resp = jolokiaClient.execute(req);
+            failed = false;
+            return resp;
+        } finally {
+            transportStats.end(failed);
+        }
+    }
+
+    <REQ extends JolokiaRequest, RESP extends JolokiaResponse<REQ>> List<RESP> execute(List<REQ> reqs) throws JolokiaException {
+        transportStats.begin();
+        boolean failed = true;
+        try {
+            List<RESP> resps = jolokiaClient.execute(reqs);
+            failed = false;
+            return resps;
+        } finally {
+            transportStats.end(failed);
+        }
     }
 
     public List<String> listMBeans() throws JolokiaException {
-        if (mbeanListCache != null && mbeanListCache.isValid()) {
-            return mbeanListCache.getMBeans();
+        seed();
+        // Only the names are needed, so search all MBeans instead of fetching the full /list tree
+        // with all the attribute and operation descriptors
+        return mbeanListRefresher.get(() -> {
+            try {
+                List<String> mbeans = searchMBeans("*:*");
+                validateSnapshot(mbeans);
+                // The metadata of MBeans that were unregistered, or registered again, is stale
+                mbeanIndex.update(mbeans).forEach(mbeanInfoCache::remove);
+                return mbeans;
+            } catch (MalformedObjectNameException e) {
+                // Never happens with a constant pattern
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the changes of the MBean list since the token. The index is only updated when the MBean
+     * list is refreshed, so polling more often than the refresh interval costs no remote call and only
+     * the size of the changes.
+     */
+    public JSONObject listMBeanChanges(String sinceToken) throws JolokiaException {
+        List<String> mbeans = listMBeans();
+        if (!mbeanIndex.isInitialized()) {
+            // Served from a seeded snapshot, which the index starts with until the list is refreshed
+            mbeanIndex.update(mbeans);
         }
+        return mbeanIndex.changesSince(sinceToken);
+    }
 
-        JSONObject domains = list(null);
-        List<String> result = domains.entrySet().stream()
-            .flatMap(domain -> ((JSONObject) domain.getValue()).keySet().stream()
-                .map(props -> domain.getKey() + ":" + props))
-            .collect(Collectors.toList());
-        mbeanListCache = new MBeanListCache(result);
-        return result;
+    public List<String> searchMBeans(String pattern) throws JolokiaException, MalformedObjectNameException {
+        JolokiaSearchRequest req = new JolokiaSearchRequest(pattern);
+        preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
+        JolokiaSearchResponse resp = execute(req);
+        return resp.getMBeanNames();
     }
 
     public JSONObject listOperations(String mbean) throws JolokiaException {
@@ -75,12 +241,19 @@ public class JolokiaClient implements JolokiaService {
     }
 
     JSONObject getFromMBean(String mbean, String key) throws JolokiaException {
+        seed();
+        // Attributes and operations share one cached entry and one fetch
+        JSONObject mbeanInfo = mbeanInfoCache.get(mbean, this::fetchMBeanInfo);
+        return (JSONObject) mbeanInfo.getOrDefault(key, new JSONObject());
+    }
+
+    JSONObject fetchMBeanInfo(String mbean) throws JolokiaException {
         JSONObject mbeanInfo = list(toPath(mbean));
         // expected to be /list/{domain}/{key-list}/{specific-key}
         for (String keyParent : mbean.split(":", 2)) {
             mbeanInfo = (JSONObject) mbeanInfo.getOrDefault(keyParent, mbeanInfo);
         }
-        return (JSONObject) mbeanInfo.getOrDefault(key, new JSONObject());
+        return mbeanInfo;
     }
 
     static String toPath(String mbean) {
@@ -90,31 +263,138 @@ public class JolokiaClient implements JolokiaService {
     JSONObject list(String path) throws JolokiaException {
         JolokiaListRequest req = new JolokiaListRequest(path);
         preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
-        JolokiaListResponse resp = jolokiaClient.execute(req);
+        JolokiaListResponse resp = execute(req);
         return resp.getValue();
     }
 
     public Optional<Object> read(String mbean, String attr) throws JolokiaException, MalformedObjectNameException {
         JolokiaReadRequest req = new JolokiaReadRequest(mbean, attr);
         preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
-        JolokiaReadResponse resp = jolokiaClient.execute(req);
+        JolokiaReadResponse resp = execute(req);
         return Optional.ofNullable(resp.getValue());
     }
 
+    /**
+     * Reads the given attributes with a single request, letting the agent navigate into the values
+     * along the path so that only the requested part of them is transferred.
+     */
+    public Optional<Object> read(String mbean, List<String> attrs, String path)
+        throws JolokiaException, MalformedObjectNameException {
+        if (attrs.isEmpty()) {
+            // An empty attribute list would read all attributes
+            throw new IllegalArgumentException("No attribute to read from " + mbean);
+        }
+        JolokiaReadRequest req = new JolokiaReadRequest(mbean, attrs.toArray(String[]::new));
+        if (path != null && !path.isEmpty()) {
+            req.setPath(path);
+        }
+        preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
+        JolokiaReadResponse resp = execute(req);
+        return Optional.ofNullable(resp.getValue());
+    }
+
+    public JSONObject readPattern(String pattern, String attr) throws JolokiaException, MalformedObjectNameException {
+        JolokiaReadRequest req = new JolokiaReadRequest(pattern, attr);
+        preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
+        JolokiaReadResponse resp = execute(req);
+        return JolokiaService.flattenPatternRead(pattern, resp.getValue(), attr);
+    }
+
+    /**
+     * Reads all the given attributes with a single Jolokia bulk request. Failures of individual
+     * reads don't fail the whole request but are reported as {@code error} of the entry.
+     */
+    public JSONArray readAttributes(List<MBeanAttribute> attributes) throws JolokiaException, MalformedObjectNameException {
+        JSONArray result = new JSONArray();
+        if (attributes.isEmpty()) {
+            return result;
+        }
+
+        List<JolokiaReadRequest> reqs = new ArrayList<>(attributes.size());
+        for (MBeanAttribute attribute : attributes) {
+            reqs.add(new JolokiaReadRequest(attribute.mbean(), attribute.attribute()));
+        }
+        // Bulk requests are always sent with POST, so the preferred HTTP method doesn't apply
+        List<?> responses;
+        try {
+            responses = execute(reqs);
+        } catch (JolokiaBulkRemoteException e) {
+            // Contains either responses or remote exceptions for each request
+            responses = e.getResults();
+        }
+
+        for (int i = 0; i < attributes.size(); i++) {
+            MBeanAttribute attribute = attributes.get(i);
+            JSONObject entry = new JSONObject();
+            entry.put("mbean", attribute.mbean());
+            entry.put("attribute", attribute.attribute());
+            Object resp = responses.get(i);
+            if (resp instanceof JolokiaReadResponse readResp) {
+                entry.put("value", readResp.getValue());
+            } else if (resp instanceof JolokiaRemoteException remoteExp) {
+                entry.put("error", remoteExp.getMessage());
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
     public Optional<Object> write(String mbean, String attr, Object value) throws JolokiaException, MalformedObjectNameException {
         JolokiaWriteRequest req = new JolokiaWriteRequest(mbean, attr, value);
         preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
-        JolokiaWriteResponse resp = jolokiaClient.execute(req);
+        JolokiaWriteResponse resp = execute(req);
         return Optional.ofNullable(resp.getValue());
     }
 
+    /**
+     * Executes the operation. An overloaded operation is resolved to the signature matching the
+     * arguments up front, with the operation index of the MBean, so that the exec is sent with the
+     * full signature the first time. The index is built along with the cached metadata, which is
+     * prefetched for the first exec on an MBean and shared with the listing tools.
+     */
     public Optional<Object> exec(String mbean, String op, Object... args) throws JolokiaException, MalformedObjectNameException {
+        seed();
+        String operation = op;
+        if (!op.contains("(")) {
+            operation = mbeanInfoCache.getOperations(mbean, this::fetchMBeanInfo).resolve(op, args);
+        }
+        return execSignature(mbean, operation, args);
+    }
+
+    private Optional<Object> execSignature(String mbean, String op, Object... args)
+        throws JolokiaException, MalformedObjectNameException {
         JolokiaExecRequest req = new JolokiaExecRequest(mbean, op, args);
         preferredHttpMethod.ifPresent(req::setPreferredHttpMethod);
-        JolokiaExecResponse resp = jolokiaClient.execute(req);
+        JolokiaExecResponse resp = execute(req);
         return Optional.ofNullable(resp.getValue());
     }
 
+    @Override
+    public boolean isReadOnly(String mbean, List<String> attrs) {
+        return JolokiaService.isReadOnly(mbeanInfoCache.getIfPresent(mbean), attrs);
+    }
+
+    public TransportStats getTransportStats() {
+        return transportStats;
+    }
+
+    @Override
+    public void bindMetrics(MeterRegistry registry, Tags tags) {
+        JolokiaMcpMetrics.bindCache(registry, tags, "mbean-list", mbeanListRefresher,
+            MBeanListRefresher::getHits, MBeanListRefresher::getMisses);
+        JolokiaMcpMetrics.bindCache(registry, tags, "mbean-info", mbeanInfoCache,
+            MBeanInfoCache::getHits, MBeanInfoCache::getMisses);
+        FunctionCounter.builder("jolokia.mcp.transport.requests", transportStats, TransportStats::getRequests)
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder("jolokia.mcp.transport.failures", transportStats, TransportStats::getFailures)
+            .tags(tags)
+            .register(registry);
+        Gauge.builder("jolokia.mcp.transport.requests.in-flight", transportStats, TransportStats::getInFlight)
+            .tags(tags)
+            .register(registry);
+    }
+
     public Optional<HttpMethod> getPreferredHttpMethod() {
         return preferredHttpMethod;
     }
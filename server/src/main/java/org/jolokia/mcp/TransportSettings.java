@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.Config;
+import org.jolokia.client.JolokiaClientBuilder;
+
+/**
+ * HTTP transport settings of the Jolokia client, configured with the {@code jolokia.mcp.*} properties.
+ */
+public record TransportSettings(Optional<Integer> connectionTimeout,
+                                Optional<Integer> socketTimeout,
+                                boolean pooled,
+                                Optional<Integer> maxConnections,
+                                Optional<Integer> maxConnectionsPerRoute,
+                                Optional<Integer> poolTimeout) {
+
+    public static final String CONNECTION_TIMEOUT = "jolokia.mcp.connection-timeout";
+    public static final String SOCKET_TIMEOUT = "jolokia.mcp.socket-timeout";
+    public static final String POOL_ENABLED = "jolokia.mcp.pool.enabled";
+    public static final String POOL_MAX_CONNECTIONS = "jolokia.mcp.pool.max-connections";
+    public static final String POOL_MAX_CONNECTIONS_PER_ROUTE = "jolokia.mcp.pool.max-connections-per-route";
+    public static final String POOL_TIMEOUT = "jolokia.mcp.pool.timeout";
+
+    /**
+     * Default settings of the Jolokia client with connection pooling enabled.
+     */
+    public static TransportSettings defaults() {
+        return new TransportSettings(Optional.empty(), Optional.empty(), true,
+            Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    public static TransportSettings fromConfig(Config config) {
+        return new TransportSettings(
+            config.getOptionalValue(CONNECTION_TIMEOUT, Integer.class),
+            config.getOptionalValue(SOCKET_TIMEOUT, Integer.class),
+            config.getOptionalValue(POOL_ENABLED, Boolean.class).orElse(true),
+            config.getOptionalValue(POOL_MAX_CONNECTIONS, Integer.class),
+            config.getOptionalValue(POOL_MAX_CONNECTIONS_PER_ROUTE, Integer.class),
+            config.getOptionalValue(POOL_TIMEOUT, Integer.class));
+    }
+
+    JolokiaClientBuilder applyTo(JolokiaClientBuilder builder) {
+        connectionTimeout.ifPresent(builder::connectionTimeout);
+        socketTimeout.ifPresent(builder::socketTimeout);
+        if (pooled) {
+            // Keeps connections alive and reuses them across requests
+            builder.pooledConnections();
+            maxConnections.ifPresent(builder::maxTotalConnections);
+            maxConnectionsPerRoute.ifPresent(builder::defaultMaxConnectionsPerRoute);
+            poolTimeout.ifPresent(builder::maxConnectionPoolTimeout);
+        } else {
+            builder.singleConnection();
+        }
+        return builder;
+    }
+}
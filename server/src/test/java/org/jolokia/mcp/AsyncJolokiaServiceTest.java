@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncJolokiaServiceTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOffload() {
+        AtomicReference<Thread> caller = new AtomicReference<>();
+        var service = new AsyncJolokiaService(new DefaultJolokiaService() {
+            @Override
+            public List<String> listMBeans() {
+                caller.set(Thread.currentThread());
+                return List.of("test:name=a");
+            }
+        }, executor);
+
+        assertEquals(List.of("test:name=a"), service.listMBeans().await().indefinitely());
+        assertNotSame(Thread.currentThread(), caller.get());
+    }
+
+    @Test
+    void testFailure() {
+        var service = new AsyncJolokiaService(new DefaultJolokiaService() {
+            @Override
+            public Optional<Object> read(String mbean, String attr) {
+                throw new IllegalArgumentException("No such attribute: " + attr);
+            }
+        }, executor);
+
+        var e = assertThrows(IllegalArgumentException.class,
+            () -> service.read("test:name=a", "Foo").await().indefinitely());
+        assertEquals("No such attribute: Foo", e.getMessage());
+    }
+}
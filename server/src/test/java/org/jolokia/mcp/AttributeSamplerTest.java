@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AttributeSamplerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final AtomicLong threadCount = new AtomicLong(10);
+    private final AttributeSampler sampler = new AttributeSampler();
+
+    private final JolokiaService service = new DefaultJolokiaService() {
+        @Override
+        public JSONArray readAttributes(List<MBeanAttribute> attributes) {
+            JSONArray results = new JSONArray();
+            for (MBeanAttribute attribute : attributes) {
+                JSONObject entry = new JSONObject();
+                entry.put("mbean", attribute.mbean());
+                entry.put("attribute", attribute.attribute());
+                entry.put("value", threadCount.getAndIncrement());
+                results.add(entry);
+            }
+            return results;
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        sampler.executor = new JolokiaMcpExecutor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        sampler.capacity = 100;
+        sampler.maxSessions = 2;
+        sampler.minInterval = 100;
+        sampler.idleTimeout = 60_000;
+        sampler.maxDuration = 600_000;
+        sampler.scheduler = scheduler;
+        sampler.clock = now::get;
+        sampler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sampler.destroy();
+    }
+
+    @Test
+    void testSampling() {
+        String id = start();
+        for (int i = 0; i < 3; i++) {
+            now.addAndGet(1000);
+            scheduler.tick();
+        }
+
+        var summary = sampler.get(id, 5);
+        var threads = (JSONObject) ((JSONObject) summary.get("attributes")).get("ThreadCount");
+        assertEquals(3, ((Number) threads.get("count")).intValue());
+
+        sampler.stop(id, 5);
+        assertEquals(0, sampler.size());
+        assertThrows(IllegalArgumentException.class, () -> sampler.get(id, 5));
+        // Stopped samplings aren't sampled anymore
+        scheduler.tick();
+        assertEquals(13, threadCount.get());
+    }
+
+    @Test
+    void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class,
+            () -> sampler.start("default", service, "java.lang:type=Threading", List.of("ThreadCount"), 1));
+    }
+
+    @Test
+    void testIdleTimeout() {
+        String read = start();
+        String abandoned = start();
+        assertThrows(IllegalStateException.class, this::start);
+
+        now.addAndGet(40_000);
+        sampler.get(read, 5);
+        now.addAndGet(20_000);
+        scheduler.tick();
+
+        // Only the sampling that wasn't read is stopped, which frees its session
+        assertEquals(1, sampler.size());
+        assertThrows(IllegalArgumentException.class, () -> sampler.get(abandoned, 5));
+        sampler.get(read, 5);
+        start();
+        assertEquals(2, sampler.size());
+    }
+
+    @Test
+    void testMaxDuration() {
+        String id = start();
+        for (int i = 0; i < 10; i++) {
+            now.addAndGet(60_000);
+            sampler.get(id, 5);
+        }
+        // Expired samplings are also stopped on start, before checking the sessions
+        start();
+        assertEquals(1, sampler.size());
+        assertThrows(IllegalArgumentException.class, () -> sampler.get(id, 5));
+    }
+
+    private String start() {
+        return sampler.start("default", service, "java.lang:type=Threading", List.of("ThreadCount"), 1000);
+    }
+
+    /**
+     * Scheduler that runs the scheduled tasks on {@link #tick()} only.
+     */
+    private static class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+        private final List<Task> tasks = new ArrayList<>();
+        private boolean shutdown;
+
+        void tick() {
+            for (Task task : List.copyOf(tasks)) {
+                if (task.isCancelled()) {
+                    tasks.remove(task);
+                } else {
+                    task.runAndReset();
+                }
+            }
+        }
+
+        private ScheduledFuture<?> schedule(Runnable command) {
+            Task task = new Task(command);
+            tasks.add(task);
+            return task;
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            return schedule(command);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            return schedule(command);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            tasks.clear();
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+        private static class Task extends FutureTask<Void> implements ScheduledFuture<Void> {
+
+            Task(Runnable command) {
+                super(command, null);
+            }
+
+            @Override
+            public boolean runAndReset() {
+                return super.runAndReset();
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                return 0;
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedJsonWriterTest {
+
+    @Test
+    void testToJson() {
+        var value = new JSONObject();
+        value.put("name", "a\"b\n");
+        value.put("count", 3);
+        value.put("ratio", Double.NaN);
+        var list = new JSONArray();
+        list.add(true);
+        list.add(null);
+        list.add(new long[] {1, 2});
+        value.put("list", list);
+
+        assertEquals("{\"name\":\"a\\\"b\\n\",\"count\":3,\"ratio\":null,\"list\":[true,null,[1,2]]}",
+            BoundedJsonWriter.toJson(value, 0));
+    }
+
+    @Test
+    void testToText() {
+        assertEquals("plain text", BoundedJsonWriter.toText("plain text", 0));
+        assertEquals("null", BoundedJsonWriter.toText(null, 0));
+        assertEquals("[\"a\",\"b\"]", BoundedJsonWriter.toText(List.of("a", "b"), 0));
+    }
+
+    @Test
+    void testTruncation() {
+        var huge = new JSONArray();
+        for (int i = 0; i < 100_000; i++) {
+            huge.add("element-" + i);
+        }
+        String json = BoundedJsonWriter.toJson(huge, 100);
+        String marker = BoundedJsonWriter.TRUNCATION_MARKER.formatted(100);
+        assertTrue(json.endsWith(marker));
+        assertEquals(100, json.length() - marker.length());
+
+        // Multi-byte characters count with their UTF-8 length
+        String text = BoundedJsonWriter.toText("é".repeat(100), 10);
+        assertEquals("é".repeat(5) + BoundedJsonWriter.TRUNCATION_MARKER.formatted(10), text);
+    }
+}
@@ -16,15 +16,25 @@
  */
 package org.jolokia.mcp;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 import jakarta.inject.Inject;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.TestProfile;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jolokia.client.request.HttpMethod;
+import org.jolokia.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -34,7 +44,9 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @TestProfile(JettyTestResource.class)
@@ -44,6 +56,12 @@ class JolokiaClientTest {
     @Inject
     JolokiaClient jolokiaClient;
 
+    @ConfigProperty(name = "jolokia.mcp.url")
+    String url;
+
+    @TempDir
+    Path snapshotDir;
+
     @Test
     void testList() throws Exception {
         var result = jolokiaClient.listMBeans();
@@ -54,6 +72,22 @@ class JolokiaClientTest {
         assertSame(result, result2);
     }
 
+    @Test
+    void testListMatchesFullList() throws Exception {
+        var mbeans = new HashSet<>(jolokiaClient.searchMBeans("*:*"));
+        var full = new HashSet<String>();
+        jolokiaClient.list(null).forEach((domain, props) ->
+            ((JSONObject) props).keySet().forEach(p -> full.add(domain + ":" + p)));
+        assertEquals(full, mbeans);
+    }
+
+    @Test
+    void testSearchMBeans() throws Exception {
+        var result = jolokiaClient.searchMBeans("java.lang:type=Memory*");
+        assertTrue(result.contains("java.lang:type=Memory"));
+        assertTrue(result.stream().allMatch(mbean -> mbean.startsWith("java.lang:type=Memory")));
+    }
+
     @Test
     void testToPath() {
         assertEquals("java.lang/type=Memory", toPath("java.lang:type=Memory"));
@@ -74,11 +108,93 @@ class JolokiaClientTest {
         assertFalse(attributes.isEmpty());
     }
 
+    @Test
+    void testMBeanInfoCache() throws Exception {
+        var cache = jolokiaClient.mbeanInfoCache;
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        var operations = jolokiaClient.listOperations("java.lang:type=Threading");
+        var attributes = jolokiaClient.listAttributes("java.lang:type=Threading");
+        assertFalse(operations.isEmpty());
+        assertFalse(attributes.isEmpty());
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals(hits + 1, cache.getHits());
+    }
+
     @Test
     void testRead() throws Exception {
         assertNotNull(jolokiaClient.read("java.lang:type=OperatingSystem", "Name").orElse(null));
     }
 
+    @Test
+    void testReadPath() throws Exception {
+        var used = jolokiaClient.read("java.lang:type=Memory", List.of("HeapMemoryUsage"), "used").orElse(null);
+        assertTrue(used instanceof Number);
+
+        var values = jolokiaClient.read("java.lang:type=Memory", List.of("HeapMemoryUsage", "NonHeapMemoryUsage"),
+            "used").orElse(null);
+        assertTrue(values instanceof JSONObject);
+        assertTrue(((JSONObject) values).get("HeapMemoryUsage") instanceof Number);
+        assertTrue(((JSONObject) values).get("NonHeapMemoryUsage") instanceof Number);
+    }
+
+    @Test
+    void testCacheMetrics() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        jolokiaClient.bindMetrics(registry, Tags.of("target", "test"));
+        jolokiaClient.listMBeans();
+        jolokiaClient.listMBeans();
+        var hits = registry.find(JolokiaMcpMetrics.CACHE_HITS).tags("cache", "mbean-list").functionCounter();
+        assertNotNull(hits);
+        assertTrue(hits.count() >= 1);
+        assertNotNull(registry.find("jolokia.mcp.transport.requests").functionCounter());
+    }
+
+    @Test
+    void testReadPattern() throws Exception {
+        var result = jolokiaClient.readPattern("java.lang:type=GarbageCollector,*", "CollectionCount");
+        assertFalse(result.isEmpty());
+        result.forEach((mbean, value) -> {
+            assertTrue(mbean.startsWith("java.lang:"));
+            assertTrue(value instanceof Number);
+        });
+    }
+
+    @Test
+    void testReadPatternNonPattern() throws Exception {
+        var result = jolokiaClient.readPattern("java.lang:type=Threading", "ThreadCount");
+        assertEquals(1, result.size());
+        assertTrue(result.get("java.lang:type=Threading") instanceof Number);
+
+        // Composite values aren't mistaken for the MBean map of a pattern read
+        var heap = jolokiaClient.readPattern("java.lang:type=Memory", "HeapMemoryUsage");
+        assertTrue(((JSONObject) heap.get("java.lang:type=Memory")).containsKey("used"));
+        var pools = jolokiaClient.readPattern("java.lang:type=MemoryPool,*", "Usage");
+        assertFalse(pools.isEmpty());
+        pools.values().forEach(usage -> assertTrue(((JSONObject) usage).containsKey("used")));
+    }
+
+    @Test
+    void testReadAttributes() throws Exception {
+        var result = jolokiaClient.readAttributes(List.of(
+            new MBeanAttribute("java.lang:type=OperatingSystem", "Name"),
+            new MBeanAttribute("java.lang:type=Runtime", "VmName"),
+            new MBeanAttribute("java.lang:type=Runtime", "NoSuchAttribute")));
+        assertEquals(3, result.size());
+        assertNotNull(((JSONObject) result.get(0)).get("value"));
+        assertNotNull(((JSONObject) result.get(1)).get("value"));
+        assertTrue(((JSONObject) result.get(2)).containsKey("error"));
+    }
+
+    @Test
+    void testTransportStats() throws Exception {
+        var stats = jolokiaClient.getTransportStats();
+        long requests = stats.getRequests();
+        jolokiaClient.read("java.lang:type=Runtime", "Uptime");
+        assertTrue(stats.getRequests() > requests);
+        assertTrue(stats.getPeakInFlight() >= 1);
+    }
+
     @Test
     void testWrite() throws Exception {
         assertNotNull(jolokiaClient.write("java.lang:type=Memory", "Verbose", true).orElse(null));
@@ -89,6 +205,81 @@ class JolokiaClientTest {
         assertDoesNotThrow(() -> jolokiaClient.exec("java.lang:type=Memory", "gc"));
     }
 
+    @Test
+    void testExecOverloaded() throws Exception {
+        String mbean = "java.lang:type=Threading";
+        long threadId = Thread.currentThread().getId();
+        var client = new JolokiaClient(url, Optional.empty(), 100, TransportSettings.defaults(),
+            MBeanListRefresher.defaults(Runnable::run));
+        var stats = client.getTransportStats();
+        // The metadata is prefetched, so the exec is sent with the full signature right away
+        assertDoesNotThrow(() -> client.exec(mbean, "getThreadInfo", threadId, 1));
+        assertEquals(2, stats.getRequests());
+        // Resolved up front from the cached operation index
+        assertDoesNotThrow(() -> client.exec(mbean, "getThreadInfo", threadId, 1));
+        assertEquals(3, stats.getRequests());
+    }
+
+    @Test
+    void testSeedFromSnapshot() throws Exception {
+        var mbean = "java.lang:type=Memory";
+        var snapshot = new MBeanSnapshot(url, List.of(mbean), Map.of(mbean, seededInfo()));
+        new MBeanSnapshotStore(snapshotDir).save(snapshot);
+        List<Runnable> refreshes = new ArrayList<>();
+        var client = snapshotClient(refreshes);
+        // Nothing is seeded, nor fetched, before the first use
+        assertNull(client.mbeanInfoCache.getIfPresent(mbean));
+        assertTrue(refreshes.isEmpty());
+
+        // Served from the snapshot, while it's validated in the background
+        assertEquals(seededInfo().get("op"), client.listOperations(mbean));
+        assertEquals(List.of(mbean), client.listMBeans());
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void testValidateSnapshot() throws Exception {
+        var mbeans = jolokiaClient.searchMBeans("*:*");
+        var mbean = "java.lang:type=Memory";
+        new MBeanSnapshotStore(snapshotDir).save(new MBeanSnapshot(url, mbeans, Map.of(mbean, seededInfo())));
+        List<Runnable> refreshes = new ArrayList<>();
+        var client = snapshotClient(refreshes);
+
+        assertEquals(mbeans, client.listMBeans());
+        refreshes.forEach(Runnable::run);
+        // The MBeans are unchanged, so the seeded metadata is kept
+        assertEquals(seededInfo().get("op"), client.listOperations(mbean));
+    }
+
+    @Test
+    void testValidateStaleSnapshot() throws Exception {
+        var mbean = "java.lang:type=Memory";
+        var mbeans = List.of(mbean, "test:type=Removed");
+        new MBeanSnapshotStore(snapshotDir).save(new MBeanSnapshot(url, mbeans, Map.of(mbean, seededInfo())));
+        List<Runnable> refreshes = new ArrayList<>();
+        var client = snapshotClient(refreshes);
+
+        assertEquals(mbeans, client.listMBeans());
+        refreshes.forEach(Runnable::run);
+        // The MBeans have changed, so the seeded metadata is dropped and fetched from the target
+        assertNull(client.mbeanInfoCache.getIfPresent(mbean));
+        assertFalse(client.listMBeans().contains("test:type=Removed"));
+        assertTrue(client.listOperations(mbean).containsKey("gc"));
+    }
+
+    private JolokiaClient snapshotClient(List<Runnable> refreshes) {
+        return new JolokiaClient(url, Optional.empty(), 100, TransportSettings.defaults(),
+            new MBeanListRefresher(60_000, 60_000, refreshes::add), new MBeanSnapshotStore(snapshotDir));
+    }
+
+    private static JSONObject seededInfo() {
+        var op = new JSONObject();
+        op.put("seeded", new JSONObject());
+        var info = new JSONObject();
+        info.put("op", op);
+        return info;
+    }
+
     @ParameterizedTest
     @MethodSource("providePreferredHttpMethodTestCases")
     void testPreferredHttpMethod(String config, Optional<HttpMethod> expected) throws Exception {
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JolokiaMcpExecutorTest {
+
+    private final JolokiaMcpExecutor executor = new JolokiaMcpExecutor();
+
+    @BeforeEach
+    void setUp() {
+        executor.toolLimits = Optional.empty();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void testRejectWhenSaturated() throws Exception {
+        executor.threads = 1;
+        executor.queueSize = 1;
+        executor.init();
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            await(release);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {
+        });
+        assertEquals(1, executor.getActiveCount());
+        assertEquals(1, executor.getQueueSize());
+
+        var e = assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+        assertTrue(e.getMessage().contains("busy"), e.getMessage());
+        assertEquals(1, executor.getRejected());
+        release.countDown();
+    }
+
+    @Test
+    void testToolLimit() {
+        executor.toolLimits = Optional.of(List.of("executeMBeanOperation=1"));
+        executor.init();
+
+        executor.acquire("executeMBeanOperation");
+        assertThrows(RejectedExecutionException.class, () -> executor.acquire("executeMBeanOperation"));
+        assertEquals(1, executor.getRejected("executeMBeanOperation"));
+        // Unlimited tools
+        assertDoesNotThrow(() -> executor.acquire("listMBeans"));
+        assertDoesNotThrow(() -> executor.acquire("listMBeans"));
+
+        executor.release("executeMBeanOperation");
+        assertDoesNotThrow(() -> executor.acquire("executeMBeanOperation"));
+    }
+
+    @Test
+    void testInvalidToolLimit() {
+        executor.toolLimits = Optional.of(List.of("executeMBeanOperation"));
+        assertThrows(IllegalArgumentException.class, executor::init);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Optional;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JolokiaMcpMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private JolokiaMcpServer server;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        DefaultJolokiaTargets targets = new DefaultJolokiaTargets();
+        targets.jolokiaService = new DefaultJolokiaService() {
+            @Override
+            public Optional<Object> read(String mbean, String attr) {
+                if (!"Name".equals(attr)) {
+                    throw new IllegalArgumentException("No such attribute: " + attr);
+                }
+                return Optional.of("test");
+            }
+        };
+        server = new JolokiaMcpServer();
+        server.targets = targets;
+        server.executor = new JolokiaMcpExecutor();
+        server.executor.toolLimits = Optional.empty();
+        server.executor.init();
+        server.metrics = new JolokiaMcpMetrics(registry);
+        server.coalescer = ReadCoalescer.disabled();
+        server.outputFormat = OutputFormat.JSON;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.executor.destroy();
+    }
+
+    @Test
+    void testToolMetrics() {
+        server.readMBeanAttribute("java.lang:type=Runtime", "Name", null, null).await().indefinitely();
+        server.readMBeanAttribute("java.lang:type=Runtime", "Foo", null, null).await().indefinitely();
+
+        var success = registry.find(JolokiaMcpMetrics.TOOL_CALLS)
+            .tags("tool", "readMBeanAttribute", "target", "default", "outcome", "success")
+            .timer();
+        assertNotNull(success);
+        assertEquals(1, success.count());
+        var errors = registry.find(JolokiaMcpMetrics.TOOL_ERRORS)
+            .tags("tool", "readMBeanAttribute", "domain", "java.lang")
+            .counter();
+        assertNotNull(errors);
+        assertEquals(1, errors.count());
+        var size = registry.find(JolokiaMcpMetrics.TOOL_RESPONSE_SIZE).tags("tool", "readMBeanAttribute").summary();
+        assertNotNull(size);
+        assertEquals(2, size.count());
+
+        var calls = registry.find(JolokiaMcpMetrics.JOLOKIA_CALLS)
+            .tags("method", "read", "target", "default", "outcome", "success")
+            .timer();
+        assertNotNull(calls);
+        assertEquals(1, calls.count());
+        assertEquals(1, registry.find(JolokiaMcpMetrics.JOLOKIA_ERRORS)
+            .tags("domain", "java.lang", "exception", "IllegalArgumentException")
+            .counter().count());
+    }
+
+    @Test
+    void testCacheMetrics() {
+        var cache = new MBeanInfoCache(10);
+        JolokiaMcpMetrics.bindCache(registry, Tags.of("target", "test"), "mbean-info", cache,
+            MBeanInfoCache::getHits, MBeanInfoCache::getMisses);
+        cache.get("test:name=a", mbean -> new JSONObject());
+        cache.get("test:name=a", mbean -> new JSONObject());
+        cache.get("test:name=a", mbean -> new JSONObject());
+
+        var tags = Tags.of("target", "test", "cache", "mbean-info");
+        assertEquals(2, registry.find(JolokiaMcpMetrics.CACHE_HITS).tags(tags).functionCounter().count());
+        assertEquals(1, registry.find(JolokiaMcpMetrics.CACHE_MISSES).tags(tags).functionCounter().count());
+        double ratio = registry.find(JolokiaMcpMetrics.CACHE_HIT_RATIO).tags(tags).gauge().value();
+        assertTrue(Math.abs(ratio - 2.0 / 3) < 1e-9);
+    }
+
+    @Test
+    void testUnknownTarget() {
+        server.readMBeanAttribute("java.lang:type=Runtime", "Name", null, "prod-*").await().indefinitely();
+        server.readMBeanAttribute("java.lang:type=Runtime", "Name", null, "default").await().indefinitely();
+
+        assertEquals(1, registry.find(JolokiaMcpMetrics.TOOL_CALLS)
+            .tags("target", JolokiaMcpMetrics.UNKNOWN_TARGET)
+            .timer().count());
+        assertEquals(1, registry.find(JolokiaMcpMetrics.TOOL_CALLS)
+            .tags("target", "default")
+            .timer().count());
+    }
+
+    @Test
+    void testDomain() {
+        assertEquals("java.lang", JolokiaMcpMetrics.domain("java.lang:type=Runtime"));
+        assertEquals("none", JolokiaMcpMetrics.domain(null));
+        assertEquals("none", JolokiaMcpMetrics.domain("no name"));
+        assertEquals("none", JolokiaMcpMetrics.domain("java.*:type=Runtime"));
+    }
+
+    @Test
+    void testDomainLimit() {
+        var metrics = new JolokiaMcpMetrics(registry);
+        for (int i = 0; i < JolokiaMcpMetrics.MAX_DOMAINS; i++) {
+            assertEquals("d" + i, metrics.domainTag("d" + i + ":type=Test"));
+        }
+        assertEquals(JolokiaMcpMetrics.OTHER_DOMAIN, metrics.domainTag("more:type=Test"));
+        assertEquals("d0", metrics.domainTag("d0:type=Other"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JolokiaMcpServerTest {
+
+    @Test
+    void testPaginate() {
+        var mbeans = List.of("a:name=1", "a:name=2", "a:name=3");
+        assertEquals(3, JolokiaMcpServer.paginate(mbeans, null, null).size());
+        var page = JolokiaMcpServer.paginate(mbeans, 1, 1);
+        assertEquals(2, page.size());
+        assertEquals("a:name=2", page.get(0).text());
+        assertEquals("(1 more of 3 MBeans; use offset=2 to list the next ones)", page.get(1).text());
+    }
+
+    @Test
+    void testReadNoAttribute() {
+        var server = new JolokiaMcpServer();
+        assertTrue(server.readMBeanAttribute("java.lang:type=Memory", ",", null, null).await().indefinitely().isError());
+        assertTrue(server.readMBeanAttribute("java.lang:type=Memory", " ", "used", null).await().indefinitely().isError());
+    }
+
+    @Test
+    void testTopN() {
+        var values = new JSONObject();
+        values.put("a:name=1", 10L);
+        values.put("a:name=2", 30L);
+        values.put("a:name=3", "n/a");
+        values.put("a:name=4", 20.5);
+
+        assertEquals(List.of("a:name=2", "a:name=4"), List.copyOf(JolokiaMcpServer.topN(values, 2, false).keySet()));
+        assertEquals(List.of("a:name=1", "a:name=4"), List.copyOf(JolokiaMcpServer.topN(values, 2, true).keySet()));
+        assertEquals(3, JolokiaMcpServer.topN(values, 10, false).size());
+        assertEquals(0, JolokiaMcpServer.topN(values, 0, false).size());
+        assertEquals(30L, JolokiaMcpServer.topN(values, 1, false).get("a:name=2"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JolokiaServiceTest {
+
+    @Test
+    void testFlattenPatternRead() throws Exception {
+        var young = new JSONObject();
+        young.put("CollectionCount", 3L);
+        var old = new JSONObject();
+        old.put("CollectionCount", 1L);
+        var value = new JSONObject();
+        value.put("java.lang:name=Young,type=GarbageCollector", young);
+        value.put("java.lang:name=Old,type=GarbageCollector", old);
+        value.put("java.lang:name=Other,type=GarbageCollector", new JSONObject());
+
+        var expected = new JSONObject();
+        expected.put("java.lang:name=Old,type=GarbageCollector", 1L);
+        expected.put("java.lang:name=Young,type=GarbageCollector", 3L);
+        assertEquals(expected,
+            JolokiaService.flattenPatternRead("java.lang:type=GarbageCollector,*", value, "CollectionCount"));
+    }
+
+    @Test
+    void testFlattenNonPatternRead() throws Exception {
+        var expected = new JSONObject();
+        expected.put("java.lang:type=Threading", 42L);
+        assertEquals(expected, JolokiaService.flattenPatternRead("java.lang:type=Threading", 42L, "ThreadCount"));
+
+        // A composite value is the value itself, keyed by the canonical name
+        var usage = new JSONObject();
+        usage.put("used", 10L);
+        usage.put("max", 20L);
+        var composite = JolokiaService.flattenPatternRead("java.lang:type=MemoryPool,name=Eden", usage, "Usage");
+        assertEquals(1, composite.size());
+        assertEquals(usage, composite.get("java.lang:name=Eden,type=MemoryPool"));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.Map;
+import java.util.Set;
+import jakarta.inject.Inject;
+
+import io.quarkiverse.mcp.server.TextContent;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(JolokiaTargetsTest.MultiTargetProfile.class)
+@QuarkusTestResource(JettyTestResource.class)
+class JolokiaTargetsTest {
+
+    public static class MultiTargetProfile extends JettyTestResource {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            String url = "http://localhost:%s/jolokia".formatted(port);
+            return Map.of(
+                "jolokia.mcp.url", url,
+                "jolokia.mcp.target.jvm-a.url", url,
+                "jolokia.mcp.target.jvm-b.url", url);
+        }
+    }
+
+    @Inject
+    JolokiaTargets targets;
+
+    @Inject
+    JolokiaMcpServer mcpServer;
+
+    @Test
+    void testResolve() {
+        assertEquals(Set.of(JolokiaTargets.DEFAULT), targets.resolve(null).keySet());
+        assertEquals(Set.of(JolokiaTargets.DEFAULT), targets.resolve("default").keySet());
+        assertEquals(Set.of("jvm-a"), targets.resolve("jvm-a").keySet());
+        assertEquals(Set.of("jvm-a", "jvm-b"), targets.resolve("jvm-*").keySet());
+        assertEquals(Set.of("jvm-a", "jvm-b"), targets.resolve("*").keySet());
+        assertTrue(targets.resolve("other").isEmpty());
+    }
+
+    @Test
+    void testMatches() {
+        assertTrue(JolokiaTargets.matches("broker-?", "broker-1"));
+        assertTrue(JolokiaTargets.matches("*.prod", "app.prod"));
+        assertFalse(JolokiaTargets.matches("broker-?", "broker-10"));
+        assertFalse(JolokiaTargets.matches("app.prod", "appXprod"));
+    }
+
+    @Test
+    void testFanOut() {
+        var response = mcpServer.readMBeanAttribute("java.lang:type=Runtime", "VmName", null, "jvm-*")
+            .await().indefinitely();
+        assertFalse(response.isError());
+        String text = ((TextContent) response.content().get(0)).text();
+        assertTrue(text.contains("\"jvm-a\""));
+        assertTrue(text.contains("\"jvm-b\""));
+    }
+
+    @Test
+    void testNoMatchingTarget() {
+        var response = mcpServer.readMBeanAttribute("java.lang:type=Runtime", "VmName", null, "other")
+            .await().indefinitely();
+        assertTrue(response.isError());
+    }
+}
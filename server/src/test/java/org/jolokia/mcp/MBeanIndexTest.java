@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MBeanIndexTest {
+
+    @Test
+    void testFullWithoutToken() {
+        var index = new MBeanIndex();
+        index.update(List.of("test:name=b", "test:name=a"));
+        JSONObject changes = index.changesSince(null);
+        assertEquals(List.of("test:name=a", "test:name=b"), changes.get("added"));
+        assertEquals(List.of(), changes.get("removed"));
+        assertEquals(true, changes.get("full"));
+    }
+
+    @Test
+    void testChangesSinceToken() {
+        var index = new MBeanIndex();
+        index.update(List.of("test:name=a", "test:name=b"));
+        String token = (String) index.changesSince(null).get("token");
+
+        JSONObject none = index.changesSince(token);
+        assertEquals(List.of(), none.get("added"));
+        assertEquals(List.of(), none.get("removed"));
+        assertEquals(false, none.get("full"));
+        assertEquals(token, none.get("token"));
+
+        assertEquals(List.of("test:name=c", "test:name=a"), index.update(List.of("test:name=b", "test:name=c")));
+        JSONObject changes = index.changesSince(token);
+        assertEquals(List.of("test:name=c"), changes.get("added"));
+        assertEquals(List.of("test:name=a"), changes.get("removed"));
+        assertNotEquals(token, changes.get("token"));
+
+        index.added("test:name=d");
+        assertEquals(List.of("test:name=d"), index.changesSince((String) changes.get("token")).get("added"));
+    }
+
+    @Test
+    void testNetChanges() {
+        var index = new MBeanIndex();
+        index.update(List.of("test:name=a"));
+        String token = (String) index.changesSince(null).get("token");
+
+        // Registered and unregistered again, and unregistered and registered again
+        index.added("test:name=b");
+        index.removed("test:name=b");
+        index.removed("test:name=a");
+        index.added("test:name=a");
+        // No-ops
+        index.added("test:name=a");
+        index.removed("test:name=c");
+
+        JSONObject changes = index.changesSince(token);
+        assertEquals(List.of(), changes.get("added"));
+        assertEquals(List.of(), changes.get("removed"));
+    }
+
+    @Test
+    void testExpiredToken() {
+        var index = new MBeanIndex(2);
+        index.update(List.of("test:name=a"));
+        String token = (String) index.changesSince(null).get("token");
+        index.added("test:name=b");
+        assertFalse((Boolean) index.changesSince(token).get("full"));
+        index.added("test:name=c");
+        index.added("test:name=d");
+
+        // Changes since the token have been dropped
+        JSONObject changes = index.changesSince(token);
+        assertTrue((Boolean) changes.get("full"));
+        assertEquals(List.of("test:name=a", "test:name=b", "test:name=c", "test:name=d"), changes.get("added"));
+
+        // Tokens of another index, e.g. from before a restart, and invalid ones
+        assertTrue((Boolean) new MBeanIndex().changesSince(token).get("full"));
+        assertTrue((Boolean) index.changesSince("invalid").get("full"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MBeanInfoCacheTest {
+
+    @Test
+    void testLru() {
+        var cache = new MBeanInfoCache(2);
+        var a = cache.get("test:name=a", mbean -> new JSONObject());
+        cache.get("test:name=b", mbean -> new JSONObject());
+        // Touch a so that b becomes the eldest entry
+        assertSame(a, cache.get("test:name=a", mbean -> new JSONObject()));
+        cache.get("test:name=c", mbean -> new JSONObject());
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertSame(a, cache.get("test:name=a", mbean -> new JSONObject()));
+    }
+
+    @Test
+    void testRemove() {
+        var cache = MBeanInfoCache.nonExpiring(10);
+        var a = cache.get("test:name=a", mbean -> new JSONObject());
+        cache.remove("test:name=a");
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+        var a2 = cache.get("test:name=a", mbean -> new JSONObject());
+        assertEquals(2, cache.getMisses());
+        assertEquals(a, a2);
+    }
+
+    @Test
+    void testCanonicalNames() {
+        var cache = MBeanInfoCache.nonExpiring(10);
+        var info = cache.get("test:type=A,name=b", mbean -> new JSONObject());
+        assertSame(info, cache.get("test:name=b,type=A", mbean -> new JSONObject()));
+        assertSame(info, cache.getIfPresent("test:name=b,type=A"));
+
+        cache.remove("test:name=b,type=A");
+        assertEquals(0, cache.size());
+        assertNull(cache.getIfPresent("test:type=A,name=b"));
+    }
+
+    @Test
+    void testRemoveWhileLoading() {
+        var cache = MBeanInfoCache.nonExpiring(10);
+        // The MBean is unregistered while its metadata is loaded, so the loaded metadata may be stale
+        cache.get("test:name=a", mbean -> {
+            cache.remove(mbean);
+            return new JSONObject();
+        });
+        assertEquals(0, cache.size());
+        cache.get("test:name=a", mbean -> new JSONObject());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testOperations() {
+        var cache = new MBeanInfoCache(10);
+        var op = new JSONObject();
+        op.put("args", new JSONArray());
+        var ops = new JSONObject();
+        ops.put("gc", op);
+        var info = new JSONObject();
+        info.put("op", ops);
+        var index = cache.getOperations("test:name=a", mbean -> info);
+        assertSame(op, index.descriptor("gc", new Object[0]));
+        // Built once along with the cached metadata
+        assertSame(index, cache.getOperations("test:name=a", mbean -> new JSONObject()));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testListTtl() {
+        var ttl = new AtomicLong(60_000);
+        var cache = new MBeanInfoCache(10, ttl::get);
+        var info = cache.get("test:name=a", mbean -> new JSONObject());
+        assertSame(info, cache.getIfPresent("test:name=a"));
+        // Expires as soon as the TTL of the MBean list is shortened
+        ttl.set(0);
+        assertNull(cache.getIfPresent("test:name=a"));
+    }
+
+    @Test
+    void testDisabled() {
+        var cache = new MBeanInfoCache(0);
+        cache.get("test:name=a", mbean -> new JSONObject());
+        cache.get("test:name=a", mbean -> new JSONObject());
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MBeanListRefresherTest {
+
+    @Test
+    void testCached() {
+        var fetches = new AtomicInteger();
+        var refresher = new MBeanListRefresher(60_000, 60_000, Runnable::run);
+        var mbeans = List.of("test:name=a");
+        assertSame(mbeans, refresher.get(() -> {
+            fetches.incrementAndGet();
+            return mbeans;
+        }));
+        assertSame(mbeans, refresher.get(() -> {
+            fetches.incrementAndGet();
+            return List.of();
+        }));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void testStaleWhileRevalidate() {
+        List<Runnable> refreshes = new ArrayList<>();
+        // TTL of 0 makes the cache expire immediately
+        var refresher = new MBeanListRefresher(0, 0, refreshes::add);
+        var stale = List.of("test:name=a");
+        var fresh = List.of("test:name=a", "test:name=b");
+        refresher.get(() -> stale);
+
+        // Stale callers don't wait and only one refresh is started
+        assertSame(stale, refresher.get(() -> fresh));
+        assertSame(stale, refresher.get(() -> fresh));
+        assertEquals(1, refreshes.size());
+        assertTrue(refresher.isRefreshing());
+
+        refreshes.get(0).run();
+        assertFalse(refresher.isRefreshing());
+        assertSame(fresh, refresher.getCache().getMBeans());
+    }
+
+    @Test
+    void testSeed() {
+        List<Runnable> refreshes = new ArrayList<>();
+        var refresher = new MBeanListRefresher(60_000, 60_000, refreshes::add);
+        var seeded = List.of("test:name=a");
+        var fresh = List.of("test:name=a", "test:name=b");
+        refresher.seed(seeded);
+        // The seeded list is expired, but the metadata expiring with it is not
+        assertEquals(60_000, refresher.getTtl());
+
+        // The seeded list is served right away and refreshed in the background
+        assertSame(seeded, refresher.get(() -> fresh));
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertSame(fresh, refresher.getCache().getMBeans());
+        assertTrue(refresher.getCache().isValid());
+    }
+
+    @Test
+    void testFailedRefresh() {
+        var refresher = new MBeanListRefresher(0, 0, Runnable::run);
+        var stale = List.of("test:name=a");
+        refresher.get(() -> stale);
+        assertSame(stale, refresher.get(() -> {
+            throw new IllegalStateException("Connection refused");
+        }));
+        assertSame(stale, refresher.getCache().getMBeans());
+        assertFalse(refresher.isRefreshing());
+    }
+
+    @Test
+    void testRejectedRefresh() {
+        List<Runnable> refreshes = new ArrayList<>();
+        var rejecting = new AtomicInteger(1);
+        var refresher = new MBeanListRefresher(0, 0, command -> {
+            if (rejecting.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("busy");
+            }
+            refreshes.add(command);
+        });
+        var stale = List.of("test:name=a");
+        var fresh = List.of("test:name=a", "test:name=b");
+        refresher.get(() -> stale);
+
+        // The stale list is served and the refresh is retried on the next call
+        assertSame(stale, refresher.get(() -> fresh));
+        assertFalse(refresher.isRefreshing());
+        assertSame(stale, refresher.get(() -> fresh));
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        assertSame(fresh, refresher.getCache().getMBeans());
+    }
+
+    @Test
+    void testAdaptiveTtl() throws Exception {
+        List<Runnable> refreshes = new ArrayList<>();
+        var refresher = new MBeanListRefresher(1, 4, refreshes::add);
+        var mbeans = List.of("test:name=a");
+        refresher.get(() -> mbeans);
+        assertEquals(1, refresher.getCache().getTtl());
+
+        for (long expected : new long[] {2, 4, 4}) {
+            Thread.sleep(5);
+            refresher.get(() -> List.of("test:name=a"));
+            refreshes.remove(0).run();
+            assertEquals(expected, refresher.getCache().getTtl());
+        }
+
+        // A change resets the TTL
+        Thread.sleep(5);
+        refresher.get(() -> List.of("test:name=b"));
+        refreshes.remove(0).run();
+        assertEquals(1, refresher.getCache().getTtl());
+    }
+}
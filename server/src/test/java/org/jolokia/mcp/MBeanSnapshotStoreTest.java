@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MBeanSnapshotStoreTest {
+
+    private static final String URL = "http://localhost:8778/jolokia";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSaveAndLoad() {
+        var attr = new JSONObject();
+        attr.put("type", "long");
+        attr.put("rw", false);
+        attr.put("desc", "é".repeat(10));
+        var attrs = new JSONObject();
+        attrs.put("Uptime", attr);
+        var info = new JSONObject();
+        info.put("attr", attrs);
+        info.put("notif", new JSONArray());
+        info.put("count", 3L);
+        info.put("ratio", 0.5);
+        info.put("none", null);
+
+        var store = new MBeanSnapshotStore(dir);
+        var mbeans = List.of("java.lang:type=Runtime", "java.lang:type=Memory");
+        store.save(new MBeanSnapshot(URL, mbeans, Map.of("java.lang:type=Runtime", info)));
+
+        var snapshot = store.load(URL).orElseThrow();
+        assertEquals(URL, snapshot.url());
+        assertEquals(mbeans, snapshot.mbeans());
+        assertEquals(info, snapshot.mbeanInfo().get("java.lang:type=Runtime"));
+        assertTrue(store.load("http://localhost:8080/jolokia").isEmpty());
+    }
+
+    @Test
+    void testMatches() {
+        var snapshot = new MBeanSnapshot(URL, List.of("a:type=A", "b:type=B"), Map.of());
+        assertTrue(snapshot.matches(List.of("b:type=B", "a:type=A")));
+        assertFalse(snapshot.matches(List.of("a:type=A")));
+        assertFalse(snapshot.matches(List.of("a:type=A", "c:type=C")));
+    }
+
+    @Test
+    void testCorruptSnapshot() throws Exception {
+        var store = new MBeanSnapshotStore(dir);
+        store.save(new MBeanSnapshot(URL, List.of("a:type=A"), Map.of()));
+        Path file = store.file(URL);
+        Files.write(file, new byte[] {1, 2, 3});
+        assertTrue(store.load(URL).isEmpty());
+    }
+
+    @Test
+    void testCorruptCount() throws Exception {
+        var store = new MBeanSnapshotStore(dir);
+        store.save(new MBeanSnapshot(URL, List.of("a:type=A"), Map.of()));
+        Path file = store.file(URL);
+        byte[] bytes = Files.readAllBytes(file);
+        // The MBean count follows the magic number, the version and the URL
+        int offset = 4 + 4 + 4 + URL.getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer.wrap(bytes).putInt(offset, Integer.MAX_VALUE);
+        Files.write(file, bytes);
+        assertTrue(store.load(URL).isEmpty());
+    }
+
+    @Test
+    void testFailedSaveLeavesNoTemporaryFile() throws Exception {
+        var store = new MBeanSnapshotStore(dir);
+        // A non-empty directory in place of the snapshot can't be replaced
+        Path file = store.file(URL);
+        Files.createDirectories(file.resolve("blocked"));
+        store.save(new MBeanSnapshot(URL, List.of("a:type=A"), Map.of()));
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void testDisabled() {
+        var store = MBeanSnapshotStore.disabled();
+        store.save(new MBeanSnapshot(URL, List.of("a:type=A"), Map.of()));
+        assertTrue(store.load(URL).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OperationIndexTest {
+
+    @Test
+    void testResolve() {
+        var ops = new JSONObject();
+        ops.put("gc", operation());
+        var getThreadInfo = new JSONArray();
+        getThreadInfo.add(operation("long"));
+        getThreadInfo.add(operation("[J"));
+        getThreadInfo.add(operation("long", "int"));
+        getThreadInfo.add(operation("[J", "int"));
+        getThreadInfo.add(operation("[J", "boolean", "boolean"));
+        ops.put("getThreadInfo", getThreadInfo);
+        var setValue = new JSONArray();
+        setValue.add(operation("int"));
+        setValue.add(operation("double"));
+        setValue.add(operation("java.lang.String"));
+        ops.put("setValue", setValue);
+        var index = OperationIndex.of(ops);
+
+        // Not overloaded or already signed
+        assertEquals("gc", index.resolve("gc", new Object[0]));
+        assertEquals("getThreadInfo(long)", index.resolve("getThreadInfo(long)", new Object[] {1L}));
+        // By arity
+        assertEquals("getThreadInfo([J,boolean,boolean)",
+            index.resolve("getThreadInfo", new Object[] {List.of(1L), true, false}));
+        // By argument types
+        assertEquals("getThreadInfo(long)", index.resolve("getThreadInfo", new Object[] {1L}));
+        assertEquals("getThreadInfo([J)", index.resolve("getThreadInfo", new Object[] {List.of(1L)}));
+        assertEquals("getThreadInfo(long,int)", index.resolve("getThreadInfo", new Object[] {1L, 5}));
+        assertEquals("setValue(int)", index.resolve("setValue", new Object[] {1}));
+        assertEquals("setValue(double)", index.resolve("setValue", new Object[] {1.5}));
+        assertEquals("setValue(java.lang.String)", index.resolve("setValue", new Object[] {"a"}));
+        // No matching arity
+        assertEquals("setValue", index.resolve("setValue", new Object[] {1, 2}));
+    }
+
+    @Test
+    void testDescriptor() {
+        var ops = new JSONObject();
+        var getThreadInfo = new JSONArray();
+        getThreadInfo.add(operation("long"));
+        getThreadInfo.add(operation("long", "int"));
+        ops.put("getThreadInfo", getThreadInfo);
+        var index = OperationIndex.of(ops);
+
+        var descriptor = index.descriptor("getThreadInfo", new Object[] {1L, 5});
+        assertEquals(List.of("long", "int"), OperationIndex.parameterTypes(descriptor));
+        assertEquals("void", OperationIndex.returnType(descriptor));
+        assertNull(index.descriptor("getThreadInfo", new Object[0]));
+        assertNull(index.descriptor("noSuchOperation", new Object[0]));
+        assertNull(OperationIndex.returnType(null));
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals("gc", OperationIndex.of(null).resolve("gc", new Object[0]));
+        assertNull(OperationIndex.of(new JSONObject()).descriptor("gc", new Object[0]));
+    }
+
+    private static JSONObject operation(String... types) {
+        var args = new JSONArray();
+        for (String type : types) {
+            var arg = new JSONObject();
+            arg.put("name", "p" + args.size());
+            arg.put("type", type);
+            args.add(arg);
+        }
+        var op = new JSONObject();
+        op.putAll(Map.of("args", args, "ret", "void", "desc", ""));
+        return op;
+    }
+}
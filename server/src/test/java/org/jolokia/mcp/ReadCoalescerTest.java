@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadCoalescerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CompletableFuture<String> backend = new CompletableFuture<>();
+
+    private Uni<String> call() {
+        return Uni.createFrom().deferred(() -> {
+            calls.incrementAndGet();
+            return Uni.createFrom().completionStage(backend);
+        });
+    }
+
+    @Test
+    void testShareInFlight() {
+        var coalescer = new ReadCoalescer(true, 0);
+        var first = coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .subscribeAsCompletionStage();
+        var second = coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .subscribeAsCompletionStage();
+        // Different attribute
+        coalescer.share("default", "read", "java.lang:type=Memory", List.of("HeapMemoryUsage"), false, this::call)
+            .subscribeAsCompletionStage();
+
+        backend.complete("true");
+        assertEquals("true", first.toCompletableFuture().join());
+        assertEquals("true", second.toCompletableFuture().join());
+        assertEquals(2, calls.get());
+        assertEquals(1, coalescer.getCoalesced());
+
+        // Completed, so not shared anymore without the cache
+        coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .await().indefinitely();
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testCancelledSubscriber() {
+        var coalescer = new ReadCoalescer(true, 0);
+        var cancelledItems = new AtomicInteger();
+        var cancelled = coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .subscribe().with(value -> cancelledItems.incrementAndGet(), failure -> cancelledItems.incrementAndGet());
+        var other = coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .subscribeAsCompletionStage();
+        cancelled.cancel();
+
+        // Later callers still share the call in flight
+        var later = coalescer.share("default", "read", "java.lang:type=Memory", List.of("Verbose"), false, this::call)
+            .subscribeAsCompletionStage();
+
+        backend.complete("true");
+        assertEquals("true", other.toCompletableFuture().join());
+        assertEquals("true", later.toCompletableFuture().join());
+        assertEquals(0, cancelledItems.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testShareFailure() {
+        var coalescer = new ReadCoalescer(true, 0);
+        var first = coalescer.share("default", "read", "foo:type=Bar", List.of("Baz"), false, this::call)
+            .subscribeAsCompletionStage();
+        var second = coalescer.share("default", "read", "foo:type=Bar", List.of("Baz"), false, this::call)
+            .subscribeAsCompletionStage();
+
+        backend.completeExceptionally(new IllegalArgumentException("No such MBean"));
+        assertThrows(Exception.class, () -> first.toCompletableFuture().join());
+        assertThrows(Exception.class, () -> second.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testCache() {
+        var coalescer = new ReadCoalescer(true, 60_000);
+        backend.complete("value");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("value", coalescer.share("default", "read", "a:type=B", List.of("C"), true, this::call)
+                .await().indefinitely());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(2, coalescer.getCacheHits());
+
+        coalescer.evict("default", "a:type=B");
+        coalescer.share("default", "read", "a:type=B", List.of("C"), true, this::call).await().indefinitely();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testCacheOnlyReadOnly() {
+        var coalescer = new ReadCoalescer(true, 60_000);
+        backend.complete("value");
+        for (int i = 0; i < 2; i++) {
+            coalescer.share("default", "read", "a:type=B", List.of("Writable"), false, this::call).await().indefinitely();
+        }
+        assertEquals(2, calls.get());
+        assertEquals(0, coalescer.getCacheHits());
+    }
+
+    @Test
+    void testEvictCanonicalName() {
+        var coalescer = new ReadCoalescer(true, 60_000);
+        backend.complete("value");
+        coalescer.share("default", "read", "a:type=B,name=C", List.of("D"), true, this::call).await().indefinitely();
+        coalescer.evict("default", "a:name=C,type=B");
+        coalescer.share("default", "read", "a:type=B,name=C", List.of("D"), true, this::call).await().indefinitely();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testEvictInFlight() {
+        var coalescer = new ReadCoalescer(true, 0);
+        var before = coalescer.share("default", "read", "a:type=B", List.of("C"), false, this::call)
+            .subscribeAsCompletionStage();
+        var pattern = coalescer.share("default", "readPattern", "a:*", List.of("C"), false, this::call)
+            .subscribeAsCompletionStage();
+        coalescer.evict("default", "a:type=B");
+
+        // Issued after the write, so it doesn't share a read that may return the value from before it
+        var after = coalescer.share("default", "read", "a:type=B", List.of("C"), false, this::call)
+            .subscribeAsCompletionStage();
+        var patternAfter = coalescer.share("default", "readPattern", "a:*", List.of("C"), false, this::call)
+            .subscribeAsCompletionStage();
+        backend.complete("value");
+        assertEquals("value", before.toCompletableFuture().join());
+        assertEquals("value", pattern.toCompletableFuture().join());
+        assertEquals("value", after.toCompletableFuture().join());
+        assertEquals("value", patternAfter.toCompletableFuture().join());
+        assertEquals(4, calls.get());
+        assertEquals(0, coalescer.getCoalesced());
+    }
+
+    @Test
+    void testDisabled() {
+        var coalescer = ReadCoalescer.disabled();
+        backend.complete("value");
+        coalescer.share("default", "read", "a:type=B", List.of("C"), false, this::call).await().indefinitely();
+        coalescer.share("default", "read", "a:type=B", List.of("C"), false, this::call).await().indefinitely();
+        assertEquals(2, calls.get());
+    }
+}
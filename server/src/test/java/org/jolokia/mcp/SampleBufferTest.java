@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import org.jolokia.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SampleBufferTest {
+
+    @Test
+    void testSummary() {
+        var buffer = new SampleBuffer(10);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(1000L * i, i * 2);
+        }
+        var summary = buffer.summarize(10);
+        assertEquals(5, summary.get("count"));
+        assertEquals(0.0, summary.get("min"));
+        assertEquals(8.0, summary.get("max"));
+        assertEquals(4.0, summary.get("avg"));
+        // 8 over 4 seconds
+        assertEquals(2.0, summary.get("rate"));
+        assertEquals(5, ((JSONArray) summary.get("samples")).size());
+    }
+
+    @Test
+    void testWrapAround() {
+        var buffer = new SampleBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i, i);
+        }
+        assertEquals(3, buffer.size());
+        var summary = buffer.summarize(3);
+        assertEquals(2.0, summary.get("min"));
+        assertEquals(4.0, summary.get("max"));
+        var first = (JSONArray) ((JSONArray) summary.get("samples")).get(0);
+        assertEquals(2L, first.get(0));
+        assertEquals(2.0, first.get(1));
+    }
+
+    @Test
+    void testDownsample() {
+        var buffer = new SampleBuffer(100);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, i);
+        }
+        var samples = (JSONArray) buffer.summarize(4).get("samples");
+        assertEquals(4, samples.size());
+        // Average of 0..24, timestamped with the last sample of the bucket
+        var first = (JSONArray) samples.get(0);
+        assertEquals(24L, first.get(0));
+        assertEquals(12.0, first.get(1));
+    }
+
+    @Test
+    void testEmpty() {
+        var summary = new SampleBuffer(10).summarize(10);
+        assertEquals(0, summary.get("count"));
+        assertEquals(0, ((JSONArray) summary.get("samples")).size());
+        assertThrows(IllegalArgumentException.class, () -> new SampleBuffer(0));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jolokia.mcp;
+
+import java.util.List;
+
+import org.jolokia.json.JSONArray;
+import org.jolokia.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableWriterTest {
+
+    @Test
+    void testToTable() {
+        var attributes = new JSONObject();
+        var heap = new JSONObject();
+        heap.put("type", "javax.management.openmbean.CompositeData");
+        heap.put("rw", false);
+        attributes.put("HeapMemoryUsage", heap);
+        var verbose = new JSONObject();
+        verbose.put("type", "boolean");
+        verbose.put("rw", true);
+        verbose.put("desc", "tab\there");
+        attributes.put("Verbose", verbose);
+        assertEquals("name\ttype\trw\tdesc\n"
+                + "HeapMemoryUsage\tjavax.management.openmbean.CompositeData\tfalse\t\n"
+                + "Verbose\tboolean\ttrue\ttab here",
+            TableWriter.toTable(attributes, 0));
+
+        var usage = new JSONObject();
+        usage.put("used", 10L);
+        usage.put("max", 20L);
+        usage.put("pools", List.of("a", "b"));
+        assertEquals("used\t10\nmax\t20\npools\t[\"a\",\"b\"]", TableWriter.toTable(usage, 0));
+
+        var row = new JSONObject();
+        row.put("key", "a");
+        var rows = new JSONArray();
+        rows.add(row);
+        rows.add(usage);
+        assertEquals("key\tused\tmax\tpools\na\t\t\t\n\t10\t20\t[\"a\",\"b\"]", TableWriter.toTable(rows, 0));
+
+        assertEquals("a\nb", TableWriter.toTable(List.of("a", "b"), 0));
+        assertEquals("multi\nline", TableWriter.toTable("multi\nline", 0));
+        assertEquals("", TableWriter.toTable(null, 0));
+    }
+
+    @Test
+    void testTruncation() {
+        var rows = new JSONArray();
+        for (int i = 0; i < 100_000; i++) {
+            var row = new JSONObject();
+            row.put("key", "row-" + i);
+            rows.add(row);
+        }
+        var last = new JSONObject();
+        last.put("late", "never written");
+        rows.add(last);
+
+        // The rows that can't fit don't add columns
+        String table = TableWriter.toTable(rows, 100);
+        String marker = BoundedJsonWriter.TRUNCATION_MARKER.formatted(100);
+        assertTrue(table.startsWith("key\nrow-0\nrow-1\n"));
+        assertTrue(table.endsWith(marker));
+        assertEquals(100, table.length() - marker.length());
+    }
+}